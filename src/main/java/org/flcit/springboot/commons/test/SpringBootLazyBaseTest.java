@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test;
+
+import org.springframework.test.context.TestPropertySource;
+
+import org.flcit.springboot.commons.test.util.StartupProfile;
+
+/**
+ * {@link SpringBootBaseTest} with {@code spring.main.lazy-initialization}: beans are created on first use.
+ * The property is part of the context cache key: the context is not shared with the eager tests.
+ * <p>The context records its startup steps as a {@link SpringBootStartupProfilingTest}: its startup time,
+ * {@code StartupProfile.of(context).getTotal()} with the autowired context, compares with the one of an eager
+ * {@link SpringBootStartupProfilingTest}, see {@link StartupProfile}.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+@TestPropertySource(properties = "spring.main.lazy-initialization=true")
+public interface SpringBootLazyBaseTest extends SpringBootStartupProfilingTest {
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test;
+
+import org.springframework.test.context.ContextConfiguration;
+
+import org.flcit.springboot.commons.test.util.StartupProfile;
+import org.flcit.springboot.commons.test.util.StartupProfilingInitializer;
+
+/**
+ * {@link SpringBootBaseTest} whose context records its startup steps, see {@link StartupProfile}.
+ * The initializer is part of the context cache key: the context is not shared with the other tests.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+@ContextConfiguration(initializers = StartupProfilingInitializer.class)
+public interface SpringBootStartupProfilingTest extends SpringBootBaseTest {
+
+}
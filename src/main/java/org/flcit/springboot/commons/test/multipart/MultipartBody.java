@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import jakarta.servlet.http.Part;
+
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Streaming multipart/form-data body.
+ * <p>The body is never buffered: {@link #getInputStream()} chains the part headers with the
+ * input streams of the parts, each one opened only when the previous one has been fully read.
+ * The content length is known when the size of every part is known.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MultipartBody {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private final String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @param file
+     * @return this
+     */
+    public MultipartBody add(MultipartFile file) {
+        Assert.notNull(file, "File must not be null");
+        return add(file.getName(), file.getOriginalFilename(), file.getContentType(), file.getResource(), file.getSize());
+    }
+
+    /**
+     * @param part
+     * @return this
+     */
+    public MultipartBody add(Part part) {
+        Assert.notNull(part, "Part must not be null");
+        return add(part.getName(), part.getSubmittedFileName(), part.getContentType(), new PartResource(part), part.getSize());
+    }
+
+    /**
+     * @param name
+     * @param filename may be {@code null}
+     * @param contentType may be {@code null}
+     * @param content
+     * @param size the content size, negative if unknown
+     * @return this
+     */
+    public MultipartBody add(String name, String filename, String contentType, InputStreamSource content, long size) {
+        Assert.hasLength(name, "Name must not be empty");
+        Assert.notNull(content, "Content must not be null");
+        entries.add(new Entry(getHeaders(name, filename, contentType), content, size));
+        return this;
+    }
+
+    /**
+     * @return the multipart/form-data content type with the boundary
+     */
+    public MediaType getContentType() {
+        return new MediaType(MediaType.MULTIPART_FORM_DATA, Collections.singletonMap("boundary", boundary));
+    }
+
+    /**
+     * @return the body length, -1 if the size of a part is unknown
+     */
+    public long getContentLength() {
+        long length = 0;
+        for (Entry entry : entries) {
+            if (entry.size < 0) {
+                return -1;
+            }
+            length += entry.headers.length + entry.size + CRLF.length;
+        }
+        return length + getEnd().length;
+    }
+
+    /**
+     * Each call returns a new stream and opens the parts again.
+     * @return
+     */
+    public InputStream getInputStream() {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+
+            private final Iterator<Entry> iterator = entries.iterator();
+            private Entry current;
+            private int step;
+            private boolean ended;
+
+            @Override
+            public boolean hasMoreElements() {
+                return !ended;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (current == null && iterator.hasNext()) {
+                    current = iterator.next();
+                    step = 0;
+                }
+                if (current == null) {
+                    if (ended) {
+                        throw new NoSuchElementException();
+                    }
+                    ended = true;
+                    return new ByteArrayInputStream(getEnd());
+                }
+                final Entry entry = current;
+                switch (step++) {
+                    case 0:
+                        return new ByteArrayInputStream(entry.headers);
+                    case 1:
+                        return open(entry.content);
+                    default:
+                        current = null;
+                        return new ByteArrayInputStream(CRLF);
+                }
+            }
+
+        });
+    }
+
+    private byte[] getHeaders(String name, String filename, String contentType) {
+        final StringBuilder headers = new StringBuilder()
+                .append("--").append(boundary).append("\r\n")
+                .append(HttpHeaders.CONTENT_DISPOSITION).append(": ")
+                .append(ContentDisposition.formData().name(name).filename(filename).build()).append("\r\n")
+                .append(HttpHeaders.CONTENT_TYPE).append(": ")
+                .append(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE).append("\r\n")
+                .append("\r\n");
+        return headers.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] getEnd() {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static InputStream open(InputStreamSource content) {
+        try {
+            return content.getInputStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] headers;
+        private final InputStreamSource content;
+        private final long size;
+
+        private Entry(byte[] headers, InputStreamSource content, long size) {
+            this.headers = headers;
+            this.content = content;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.multipart;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.request.AbstractMockHttpServletRequestBuilder;
+import org.springframework.util.Assert;
+
+/**
+ * Request builder sending a {@link MultipartBody} as a raw multipart/form-data body.
+ * <p>The request input stream is read from the parts while the handler consumes it,
+ * so the body is never held in memory.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MultipartRequestBuilder extends AbstractMockHttpServletRequestBuilder<MultipartRequestBuilder> {
+
+    private final MultipartBody body;
+
+    /**
+     * @param method
+     * @param body
+     * @param uriTemplate
+     * @param uriVariables
+     */
+    public MultipartRequestBuilder(HttpMethod method, MultipartBody body, String uriTemplate, Object... uriVariables) {
+        super(method);
+        Assert.notNull(body, "Body must not be null");
+        this.body = body;
+        uri(uriTemplate, uriVariables);
+        contentType(body.getContentType());
+        final long contentLength = body.getContentLength();
+        if (contentLength >= 0) {
+            header(HttpHeaders.CONTENT_LENGTH, contentLength);
+        }
+    }
+
+    @Override
+    protected MockHttpServletRequest createServletRequest(ServletContext servletContext) {
+        return new StreamingRequest(servletContext, body);
+    }
+
+    private static final class StreamingRequest extends MockHttpServletRequest {
+
+        private final MultipartBody body;
+        private ServletInputStream inputStream;
+
+        private StreamingRequest(ServletContext servletContext, MultipartBody body) {
+            super(servletContext);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            if (inputStream == null) {
+                inputStream = new DelegatingServletInputStream(body.getInputStream());
+            }
+            return inputStream;
+        }
+
+        @Override
+        public int getContentLength() {
+            final long contentLength = getContentLengthLong();
+            return contentLength <= Integer.MAX_VALUE ? (int) contentLength : -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.getContentLength();
+        }
+
+    }
+
+}
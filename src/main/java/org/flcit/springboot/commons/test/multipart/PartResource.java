@@ -17,31 +17,57 @@
 package org.flcit.springboot.commons.test.multipart;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import jakarta.servlet.http.Part;
 
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
 /**
- * 
+ * {@link Resource} over a {@link Part}.
+ * <p>When the content of the part is stored in a file, either given or detected from the part
+ * (Tomcat parts stored on disk, Jetty parts exposing {@code getFile()} or {@code getPath()}),
+ * the resource is a file: {@link #getFile()} returns it and {@link #readableChannel()} is a {@link FileChannel},
+ * so {@code transferTo} and memory mapping work as with a real upload.
+ *
  * @since 
  * @author Florian Lestic
  */
 public final class PartResource implements Resource {
 
     private final Part part;
+    private final File file;
 
     /**
      * @param part
      */
     public PartResource(Part part) {
+        this(part, null);
+    }
+
+    /**
+     * @param part
+     * @param file the file holding the part content, e.g. after {@link Part#write(String)},
+     * {@code null} to detect it from the part
+     */
+    public PartResource(Part part, File file) {
         Assert.notNull(part, "Part must not be null");
         this.part = part;
+        this.file = file;
     }
 
     @Override
@@ -54,19 +80,34 @@ public final class PartResource implements Resource {
         return true;
     }
 
+    @Override
+    public boolean isFile() {
+        return resolveFile() != null;
+    }
+
     @Override
     public URL getURL() throws IOException {
-        throw new IllegalStateException();
+        return getFile().toURI().toURL();
     }
 
     @Override
     public URI getURI() throws IOException {
-        throw new IllegalStateException();
+        return getFile().toURI();
     }
 
     @Override
     public File getFile() throws IOException {
-        throw new IllegalStateException();
+        final File resolved = resolveFile();
+        if (resolved == null) {
+            throw new FileNotFoundException(getDescription() + " is not stored in a file");
+        }
+        return resolved;
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() throws IOException {
+        final File resolved = resolveFile();
+        return resolved != null ? FileChannel.open(resolved.toPath(), StandardOpenOption.READ) : Channels.newChannel(getInputStream());
     }
 
     @Override
@@ -76,12 +117,12 @@ public final class PartResource implements Resource {
 
     @Override
     public long lastModified() throws IOException {
-        throw new IllegalStateException();
+        return getFile().lastModified();
     }
 
     @Override
     public Resource createRelative(String relativePath) throws IOException {
-        throw new IllegalStateException();
+        return new FileSystemResource(getFile()).createRelative(relativePath);
     }
 
     @Override
@@ -94,4 +135,42 @@ public final class PartResource implements Resource {
         return "Part resource [" + this.part.getName() + "]";
     }
 
+    /**
+     * Resolved on each call: a part written to its destination may move its file.
+     */
+    private File resolveFile() {
+        final File resolved = file != null ? file : getPartFile(part);
+        return resolved != null && resolved.isFile() ? resolved : null;
+    }
+
+    private static File getPartFile(Part part) {
+        final Object result = invoke(part, "getFile");
+        if (result instanceof File partFile) {
+            return partFile;
+        }
+        if (invoke(part, "getPath") instanceof Path path) {
+            return path.toFile();
+        }
+        final Field field = ReflectionUtils.findField(part.getClass(), "fileItem");
+        if (field == null) {
+            return null;
+        }
+        ReflectionUtils.makeAccessible(field);
+        final Object fileItem = ReflectionUtils.getField(field, part);
+        return fileItem != null && Boolean.FALSE.equals(invoke(fileItem, "isInMemory")) && invoke(fileItem, "getStoreLocation") instanceof File storeLocation ? storeLocation : null;
+    }
+
+    private static Object invoke(Object target, String name) {
+        final Method method = ReflectionUtils.findMethod(target.getClass(), name);
+        if (method == null) {
+            return null;
+        }
+        try {
+            ReflectionUtils.makeAccessible(method);
+            return method.invoke(target);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.servlet.http.Part;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Part of any size whose content is generated on demand from a seed.
+ * <p>The same seed and size always give the same bytes, every {@link #getInputStream()} reads the content
+ * again from the start and nothing is kept in memory, so uploads of several GB keep a constant heap footprint.
+ * The heap stays constant only with a streaming multipart request: {@code MockMultipartHttpServletRequestBuilder}
+ * copies the parts with a filename into byte arrays.
+ * <pre>
+ * MvcUtils.assertPostJsonResponse(context, "/upload", null, new SyntheticPart("file", "big.bin", 42, 2L &lt;&lt; 30), expected, true, false);
+ * </pre>
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class SyntheticPart implements Part {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final String name;
+    private final String filename;
+    private final String contentType;
+    private final long seed;
+    private final long size;
+
+    /**
+     * @param name
+     * @param filename
+     * @param seed
+     * @param size
+     */
+    public SyntheticPart(String name, String filename, long seed, long size) {
+        this(name, filename, MediaType.APPLICATION_OCTET_STREAM_VALUE, seed, size);
+    }
+
+    /**
+     * @param name
+     * @param filename may be {@code null}
+     * @param contentType may be {@code null}
+     * @param seed
+     * @param size
+     */
+    public SyntheticPart(String name, String filename, String contentType, long seed, long size) {
+        Assert.hasLength(name, "Name must not be empty");
+        Assert.isTrue(size >= 0, "Size must not be negative");
+        this.name = name;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.seed = seed;
+        this.size = size;
+    }
+
+    /**
+     * @return a new stream positioned at the start of the content
+     */
+    @Override
+    public InputStream getInputStream() {
+        return new SyntheticInputStream(seed, size);
+    }
+
+    /**
+     * @return a re-readable resource over this part
+     */
+    public Resource getResource() {
+        return new PartResource(this);
+    }
+
+    /**
+     * @return
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getSubmittedFileName() {
+        return filename;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void write(String fileName) throws IOException {
+        try (InputStream in = getInputStream(); OutputStream out = Files.newOutputStream(Paths.get(fileName))) {
+            StreamUtils.copy(in, out);
+        }
+    }
+
+    @Override
+    public void delete() {
+        // nothing is stored
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (HttpHeaders.CONTENT_DISPOSITION.equalsIgnoreCase(name)) {
+            return ContentDisposition.formData().name(this.name).filename(filename).build().toString();
+        }
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            return contentType;
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        final String value = getHeader(name);
+        return value != null ? Collections.singletonList(value) : Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return contentType != null ? List.of(HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.CONTENT_TYPE) : Collections.singletonList(HttpHeaders.CONTENT_DISPOSITION);
+    }
+
+    @Override
+    public String toString() {
+        return "Synthetic part [" + name + "] seed=" + seed + ", size=" + size;
+    }
+
+    /**
+     * Each 8-byte block is the SplitMix64 mix of its index, so the content can be read and skipped from any position.
+     */
+    private static final class SyntheticInputStream extends InputStream {
+
+        private final long seed;
+        private final long size;
+        private long position;
+
+        private SyntheticInputStream(long seed, long size) {
+            this.seed = seed;
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            if (position >= size) {
+                return -1;
+            }
+            return byteAt(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            final int n = (int) Math.min(len, size - position);
+            int i = 0;
+            while (i < n && (position & 7) != 0) {
+                b[off + i++] = byteAt(position++);
+            }
+            while (n - i >= 8) {
+                long block = mix(position >>> 3);
+                for (int j = 0; j < 8; j++) {
+                    b[off + i++] = (byte) block;
+                    block >>>= 8;
+                }
+                position += 8;
+            }
+            while (i < n) {
+                b[off + i++] = byteAt(position++);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            final long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, size - position);
+        }
+
+        private byte byteAt(long index) {
+            return (byte) (mix(index >>> 3) >>> ((index & 7) << 3));
+        }
+
+        private long mix(long block) {
+            long z = seed + (block + 1) * GOLDEN_GAMMA;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Heap allocation budget of a request, measured on the executing thread with
+ * {@link ThreadMXBean#getCurrentThreadAllocatedBytes()}.
+ * <p>The request is first sent {@link #warmup(int) warm-up} times, then {@link #repeats(int) repeated}
+ * and the average number of bytes allocated per request must not exceed the budget. The allocation is split between:
+ * <ul>
+ * <li>the JSON serialization of the request body, when the body is given apart from the request;</li>
+ * <li>the request building;</li>
+ * <li>the JSON serialization of the response by the Jackson message converters of the handler adapters;</li>
+ * <li>the rest of the dispatch: filters, handler and other response writing.</li>
+ * </ul>
+ * To measure the response serialization, the Jackson converters of the {@link RequestMappingHandlerAdapter} beans
+ * are replaced by counting proxies while the budget runs, then restored: the context must not serve other requests meanwhile.
+ * Only the calling thread is measured: the work done by async dispatch threads is not counted.
+ * The test is aborted when the JVM does not support thread allocation measurement.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class AllocationBudget {
+
+    private static final int DEFAULT_WARMUP = 20;
+    private static final int DEFAULT_REPEATS = 30;
+
+    private final long maxBytes;
+    private final int warmup;
+    private final int repeats;
+
+    private AllocationBudget(long maxBytes, int warmup, int repeats) {
+        this.maxBytes = maxBytes;
+        this.warmup = warmup;
+        this.repeats = repeats;
+    }
+
+    /**
+     * @param maxBytes maximum average number of bytes allocated per request
+     * @return
+     */
+    public static AllocationBudget of(long maxBytes) {
+        Assert.isTrue(maxBytes > 0, "Budget must be positive");
+        return new AllocationBudget(maxBytes, DEFAULT_WARMUP, DEFAULT_REPEATS);
+    }
+
+    /**
+     * @param warmup number of requests sent before the measure
+     * @return a copy with the warm-up
+     */
+    public AllocationBudget warmup(int warmup) {
+        Assert.isTrue(warmup >= 0, "Warmup must not be negative");
+        return new AllocationBudget(maxBytes, warmup, repeats);
+    }
+
+    /**
+     * @param repeats number of measured requests
+     * @return a copy with the repeats
+     */
+    public AllocationBudget repeats(int repeats) {
+        Assert.isTrue(repeats > 0, "Repeats must be positive");
+        return new AllocationBudget(maxBytes, warmup, repeats);
+    }
+
+    /**
+     * @param context
+     * @param request called for each request, request builders are not reusable
+     * @return the measured allocation
+     */
+    public Report assertWithin(WebApplicationContext context, Supplier<? extends RequestBuilder> request) {
+        return assertWithin(MockMvcCache.get(context), request);
+    }
+
+    /**
+     * @param mockMvc
+     * @param request called for each request, request builders are not reusable
+     * @return the measured allocation
+     */
+    public Report assertWithin(MockMvc mockMvc, Supplier<? extends RequestBuilder> request) {
+        return assertWithin(mockMvc, () -> null, body -> request.get());
+    }
+
+    /**
+     * @param mockMvc
+     * @param serialization serialize the request body, may return {@code null}
+     * @param request build the request from the serialized body
+     * @return the measured allocation
+     */
+    public Report assertWithin(MockMvc mockMvc, Supplier<byte[]> serialization, Function<byte[], ? extends RequestBuilder> request) {
+        final ThreadMXBean threadMXBean = getThreadMXBean();
+        long serializationBytes = 0;
+        long buildBytes = 0;
+        long dispatchBytes = 0;
+        long responseSerializationBytes;
+        try (ResponseSerializationCounter counter = new ResponseSerializationCounter(threadMXBean, mockMvc.getDispatcherServlet().getWebApplicationContext())) {
+            for (int i = 0; i < warmup; i++) {
+                perform(mockMvc, request.apply(serialization.get()));
+            }
+            counter.reset();
+            for (int i = 0; i < repeats; i++) {
+                final long start = threadMXBean.getCurrentThreadAllocatedBytes();
+                final byte[] body = serialization.get();
+                final long serialized = threadMXBean.getCurrentThreadAllocatedBytes();
+                final RequestBuilder requestBuilder = request.apply(body);
+                final long built = threadMXBean.getCurrentThreadAllocatedBytes();
+                perform(mockMvc, requestBuilder);
+                final long dispatched = threadMXBean.getCurrentThreadAllocatedBytes();
+                serializationBytes += serialized - start;
+                buildBytes += built - serialized;
+                dispatchBytes += dispatched - built;
+            }
+            responseSerializationBytes = counter.getBytes();
+        }
+        final Report report = new Report(serializationBytes / repeats, buildBytes / repeats,
+                responseSerializationBytes / repeats, (dispatchBytes - responseSerializationBytes) / repeats);
+        assertTrue(report.getTotalBytes() <= maxBytes, () -> report + " exceeds the budget of " + maxBytes + " bytes per request (warm-up " + warmup + ", repeats " + repeats + ")");
+        return report;
+    }
+
+    private static ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof ThreadMXBean && ((ThreadMXBean) bean).isThreadAllocatedMemorySupported(), "Thread allocation measurement is not supported");
+        final ThreadMXBean threadMXBean = (ThreadMXBean) bean;
+        if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threadMXBean;
+    }
+
+    private static void perform(MockMvc mockMvc, RequestBuilder requestBuilder) {
+        try {
+            mockMvc.perform(requestBuilder);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<= " + maxBytes + " bytes per request over " + repeats + " requests after " + warmup + " warm-up";
+    }
+
+    /**
+     * Counts the bytes allocated on the measuring thread by the Jackson converters writing the responses.
+     */
+    private static final class ResponseSerializationCounter implements MethodInterceptor, AutoCloseable {
+
+        private static final String WRITE_INTERNAL = "writeInternal";
+
+        private final ThreadMXBean threadMXBean;
+        private final Thread thread = Thread.currentThread();
+        private final List<Runnable> restores = new ArrayList<>();
+        private long bytes;
+
+        private ResponseSerializationCounter(ThreadMXBean threadMXBean, WebApplicationContext context) {
+            this.threadMXBean = threadMXBean;
+            if (context != null) {
+                for (RequestMappingHandlerAdapter adapter : context.getBeansOfType(RequestMappingHandlerAdapter.class).values()) {
+                    decorate(adapter.getMessageConverters());
+                }
+            }
+        }
+
+        private void decorate(List<HttpMessageConverter<?>> converters) {
+            for (int i = 0; i < converters.size(); i++) {
+                final HttpMessageConverter<?> converter = converters.get(i);
+                if (converter instanceof AbstractJackson2HttpMessageConverter) {
+                    final ProxyFactory proxyFactory = new ProxyFactory(converter);
+                    proxyFactory.setProxyTargetClass(true);
+                    proxyFactory.addAdvice(this);
+                    final int index = i;
+                    converters.set(index, (HttpMessageConverter<?>) proxyFactory.getProxy(converter.getClass().getClassLoader()));
+                    restores.add(() -> converters.set(index, converter));
+                }
+            }
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (!WRITE_INTERNAL.equals(invocation.getMethod().getName()) || Thread.currentThread() != thread) {
+                return invocation.proceed();
+            }
+            final long start = threadMXBean.getCurrentThreadAllocatedBytes();
+            try {
+                return invocation.proceed();
+            } finally {
+                bytes += threadMXBean.getCurrentThreadAllocatedBytes() - start;
+            }
+        }
+
+        private long getBytes() {
+            return bytes;
+        }
+
+        private void reset() {
+            bytes = 0;
+        }
+
+        @Override
+        public void close() {
+            restores.forEach(Runnable::run);
+        }
+
+    }
+
+    /**
+     * Average number of bytes allocated per request.
+     */
+    public static final class Report {
+
+        private final long serializationBytes;
+        private final long buildBytes;
+        private final long responseSerializationBytes;
+        private final long dispatchBytes;
+
+        private Report(long serializationBytes, long buildBytes, long responseSerializationBytes, long dispatchBytes) {
+            this.serializationBytes = serializationBytes;
+            this.buildBytes = buildBytes;
+            this.responseSerializationBytes = responseSerializationBytes;
+            this.dispatchBytes = dispatchBytes;
+        }
+
+        /**
+         * @return the bytes allocated by the JSON serialization of the request body
+         */
+        public long getSerializationBytes() {
+            return serializationBytes;
+        }
+
+        /**
+         * @return the bytes allocated by the request building
+         */
+        public long getBuildBytes() {
+            return buildBytes;
+        }
+
+        /**
+         * @return the bytes allocated by the Jackson converters writing the response
+         */
+        public long getResponseSerializationBytes() {
+            return responseSerializationBytes;
+        }
+
+        /**
+         * @return the bytes allocated by the dispatch, response serialization excluded
+         */
+        public long getDispatchBytes() {
+            return dispatchBytes;
+        }
+
+        /**
+         * @return
+         */
+        public long getTotalBytes() {
+            return serializationBytes + buildBytes + responseSerializationBytes + dispatchBytes;
+        }
+
+        @Override
+        public String toString() {
+            return getTotalBytes() + " bytes per request (request serialization " + serializationBytes
+                    + ", build " + buildBytes + ", response serialization " + responseSerializationBytes + ", dispatch " + dispatchBytes + ")";
+        }
+
+    }
+
+}
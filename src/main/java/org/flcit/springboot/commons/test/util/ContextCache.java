@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.boot.test.context.assertj.ApplicationContextAssertProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.util.Assert;
+
+/**
+ * Thread-safe cache of values bound to an {@link ApplicationContext}.
+ * <p>Entries are keyed by the source context (the {@link ApplicationContextAssertProvider} proxy is unwrapped)
+ * and evicted when the context is closed. Contexts that are not {@link ConfigurableApplicationContext}
+ * cannot notify their close and are never cached, nor are contexts already closed or not refreshed yet:
+ * their close event would never come.
+ *
+ * @param <C> the context type
+ * @param <V> the value type
+ * @since 
+ * @author Florian Lestic
+ */
+final class ContextCache<C extends ApplicationContext, V> {
+
+    private final Map<ApplicationContext, V> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param context
+     * @param factory
+     * @return
+     */
+    V get(final C context, final Function<C, V> factory) {
+        Assert.notNull(context, "Context must not be null");
+        final C source = getSourceContext(context);
+        if (!(source instanceof ConfigurableApplicationContext configurable) || !configurable.isActive()) {
+            return factory.apply(source);
+        }
+        return cache.computeIfAbsent(source, key -> registerCloseListener(source, factory.apply(source)));
+    }
+
+    /**
+     * @param context
+     * @param value
+     * @return
+     */
+    V put(final C context, final V value) {
+        Assert.notNull(context, "Context must not be null");
+        Assert.notNull(value, "Value must not be null");
+        final C source = getSourceContext(context);
+        Assert.isInstanceOf(ConfigurableApplicationContext.class, source, "Context must be closeable to be cached");
+        if (!((ConfigurableApplicationContext) source).isActive()) {
+            return value;
+        }
+        if (cache.put(source, value) == null) {
+            registerCloseListener(source, value);
+        }
+        return value;
+    }
+
+    /**
+     * @param context
+     */
+    void remove(final C context) {
+        cache.remove(getSourceContext(context));
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private V registerCloseListener(final C context, final V value) {
+        ((ConfigurableApplicationContext) context).addApplicationListener(event -> {
+            if (event instanceof ContextClosedEvent closed && closed.getApplicationContext() == context) {
+                cache.remove(context);
+            }
+        });
+        return value;
+    }
+
+    /**
+     * @param <C>
+     * @param context
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static <C extends ApplicationContext> C getSourceContext(final C context) {
+        if (context instanceof ApplicationContextAssertProvider<?> provider) {
+            return (C) provider.getSourceApplicationContext();
+        }
+        return context;
+    }
+
+}
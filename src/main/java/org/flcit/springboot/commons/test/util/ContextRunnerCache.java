@@ -0,0 +1,448 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.time.Duration;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.context.annotation.Configurations;
+import org.springframework.boot.test.context.assertj.ApplicationContextAssertProvider;
+import org.springframework.boot.test.context.runner.AbstractApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ContextConsumer;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Process-wide cache of the contexts started by {@link AbstractApplicationContextRunner context runners},
+ * as the Spring TestContext framework does for test classes.
+ * <p>Runners with the same configuration share one started context, bounded with a least recently used eviction
+ * that closes the evicted context. The configuration is compared by value on its context type, configuration classes,
+ * property values and system properties, flags, class loader and parent.
+ * <p>Bean registrations ({@code withBean}, mock beans) and initializers cannot be compared: a runner having any
+ * is run without the cache, its context closed after the consumer, unless the caller gives a
+ * {@link #run(Object, AbstractApplicationContextRunner, ContextConsumer) key} standing for them.
+ * The initializers of {@link StartupMode} and {@link StartupProfilingInitializer} are stateless and compared by type.
+ * The runner configuration is read by reflection: when the Spring Boot internals change, runners are run without the cache.
+ * <p>A cached context is not closed after the consumer: only read-only assertions may use it.
+ * An evicted context is closed once the consumers running on it complete.
+ * System properties of the runner are only applied while the context starts.
+ * {@link ContextRunnerUtils} assertions use the cache once {@link #setEnabled(boolean) enabled}.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class ContextRunnerCache {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 32;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder BYPASSES = new LongAdder();
+    private static final LongAdder STARTUP_NANOS = new LongAdder();
+    private static final LongAdder SAVED_NANOS = new LongAdder();
+    private static final Method CREATE_ASSERTABLE_CONTEXT = ReflectionUtils.findMethod(AbstractApplicationContextRunner.class, "createAssertableContext", boolean.class);
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maximumSize) {
+                eldest.getValue().evict();
+                return true;
+            }
+            return false;
+        }
+
+    };
+    private static int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private static volatile boolean enabled;
+
+    private ContextRunnerCache() { }
+
+    /**
+     * Run the consumer with the cached context of the runner, started on the first call.
+     * @param <A>
+     * @param contextRunner
+     * @param consumer read-only assertions
+     */
+    public static <A extends ApplicationContextAssertProvider<?>> void run(final AbstractApplicationContextRunner<?, ?, A> contextRunner, final ContextConsumer<? super A> consumer) {
+        run(null, contextRunner, consumer);
+    }
+
+    /**
+     * Run the consumer with the cached context of the runner, started on the first call.
+     * @param <A>
+     * @param key stands for the bean registrations and initializers of the runner:
+     * runners with equal keys must register the same beans
+     * @param contextRunner
+     * @param consumer read-only assertions
+     */
+    @SuppressWarnings("unchecked")
+    public static <A extends ApplicationContextAssertProvider<?>> void run(final Object key, final AbstractApplicationContextRunner<?, ?, A> contextRunner, final ContextConsumer<? super A> consumer) {
+        Assert.notNull(contextRunner, "Context runner must not be null");
+        Assert.notNull(consumer, "Consumer must not be null");
+        final Object configuration = getConfiguration(contextRunner);
+        final Key cacheKey = configuration != null ? Key.of(configuration, key) : null;
+        if (cacheKey == null) {
+            BYPASSES.increment();
+            contextRunner.run(consumer);
+            return;
+        }
+        final Entry entry = get(contextRunner, configuration, cacheKey);
+        try {
+            consumer.accept((A) entry.context);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        } finally {
+            synchronized (CACHE) {
+                entry.release();
+            }
+        }
+    }
+
+    private static Object getConfiguration(final AbstractApplicationContextRunner<?, ?, ?> contextRunner) {
+        if (CREATE_ASSERTABLE_CONTEXT == null) {
+            return null;
+        }
+        try {
+            return ReflectionTestUtils.getFieldValue(contextRunner, "runnerConfiguration");
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param contextRunner
+     * @return the system properties of the runner, {@code null} if its configuration cannot be read
+     */
+    static Map<String, Object> getSystemProperties(final AbstractApplicationContextRunner<?, ?, ?> contextRunner) {
+        final Object configuration = getConfiguration(contextRunner);
+        if (configuration == null) {
+            return null;
+        }
+        try {
+            return Key.properties((TestPropertyValues) ReflectionTestUtils.getFieldValue(configuration, "systemProperties"));
+        } catch (IllegalStateException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the entry, acquired until its {@link Entry#release() release}
+     */
+    private static Entry get(final AbstractApplicationContextRunner<?, ?, ?> contextRunner, final Object configuration, final Key key) {
+        synchronized (CACHE) {
+            final Entry entry = CACHE.get(key);
+            if (entry != null) {
+                HITS.increment();
+                SAVED_NANOS.add(entry.startupNanos);
+                return entry.acquire();
+            }
+        }
+        // started outside the lock, a concurrent miss on the same configuration closes its duplicate
+        final Entry created = start(contextRunner, configuration);
+        MISSES.increment();
+        STARTUP_NANOS.add(created.startupNanos);
+        synchronized (CACHE) {
+            final Entry entry = CACHE.get(key);
+            if (entry != null) {
+                created.close();
+                return entry.acquire();
+            }
+            created.acquire();
+            CACHE.put(key, created);
+            return created;
+        }
+    }
+
+    private static Entry start(final AbstractApplicationContextRunner<?, ?, ?> contextRunner, final Object configuration) {
+        final TestPropertyValues systemProperties = (TestPropertyValues) ReflectionTestUtils.getFieldValue(configuration, "systemProperties");
+        final ClassLoader classLoader = (ClassLoader) ReflectionTestUtils.getFieldValue(configuration, "classLoader");
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+        if (classLoader != null) {
+            thread.setContextClassLoader(classLoader);
+        }
+        final long start = System.nanoTime();
+        try {
+            ReflectionUtils.makeAccessible(CREATE_ASSERTABLE_CONTEXT);
+            final ApplicationContextAssertProvider<?> context = systemProperties.applyToSystemProperties(
+                    () -> (ApplicationContextAssertProvider<?>) ReflectionUtils.invokeMethod(CREATE_ASSERTABLE_CONTEXT, contextRunner, true));
+            if (context.getStartupFailure() == null && context.getSourceApplicationContext() instanceof ConfigurableApplicationContext source) {
+                source.registerShutdownHook();
+            }
+            return new Entry(context, System.nanoTime() - start);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * @return {@code true} if the {@link ContextRunnerUtils} assertions use the cache
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled use the cache in the {@link ContextRunnerUtils} assertions, disabled by default
+     */
+    public static void setEnabled(final boolean enabled) {
+        ContextRunnerCache.enabled = enabled;
+    }
+
+    /**
+     * @param maximumSize maximum number of cached contexts, 32 by default
+     */
+    public static void setMaximumSize(final int maximumSize) {
+        Assert.isTrue(maximumSize > 0, "Maximum size must be positive");
+        synchronized (CACHE) {
+            ContextRunnerCache.maximumSize = maximumSize;
+            final Iterator<Entry> iterator = CACHE.values().iterator();
+            while (CACHE.size() > maximumSize && iterator.hasNext()) {
+                iterator.next().evict();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of runs served by a cached context
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the number of runs that had to start a context
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * @return the number of runs without the cache, their runner configuration not being comparable
+     */
+    public static long getBypassCount() {
+        return BYPASSES.sum();
+    }
+
+    /**
+     * @return the time spent starting contexts
+     */
+    public static Duration getStartupTime() {
+        return Duration.ofNanos(STARTUP_NANOS.sum());
+    }
+
+    /**
+     * @return the startup time of the cached contexts summed over their hits
+     */
+    public static Duration getSavedTime() {
+        return Duration.ofNanos(SAVED_NANOS.sum());
+    }
+
+    /**
+     * Reset the hit, miss and time counters.
+     */
+    public static void resetStatistics() {
+        HITS.reset();
+        MISSES.reset();
+        BYPASSES.reset();
+        STARTUP_NANOS.reset();
+        SAVED_NANOS.reset();
+    }
+
+    /**
+     * @return
+     */
+    public static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Evict every cached context, closed once the consumers running on it complete.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.values().forEach(Entry::evict);
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * @return a summary of the cache statistics
+     */
+    public static String getStatistics() {
+        return String.format(Locale.ROOT, "size=%d, maxSize=%d, hits=%d, misses=%d, bypasses=%d, startup=%s, saved=%s",
+                size(), maximumSize, getHitCount(), getMissCount(), getBypassCount(), LatencyHistogram.format(getStartupTime()), LatencyHistogram.format(getSavedTime()));
+    }
+
+    /**
+     * Configuration of a runner, compared by value.
+     */
+    private static final class Key {
+
+        private static final String TEST_PROPERTY_SOURCE = "test";
+
+        private final List<Object> values;
+        private final int hash;
+
+        private Key(final List<Object> values) {
+            this.values = values;
+            this.hash = values.hashCode();
+        }
+
+        /**
+         * @return {@code null} if the configuration cannot be compared
+         */
+        @SuppressWarnings("unchecked")
+        private static Key of(final Object configuration, final Object key) {
+            try {
+                final List<Object> initializers = (List<Object>) ReflectionTestUtils.getFieldValue(configuration, "initializers");
+                final List<Object> beanRegistrations = (List<Object>) ReflectionTestUtils.getFieldValue(configuration, "beanRegistrations");
+                final List<Class<?>> initializerTypes = new ArrayList<>(initializers.size());
+                for (Object initializer : initializers) {
+                    if (isStateless(initializer)) {
+                        initializerTypes.add(initializer.getClass());
+                    } else if (key == null) {
+                        return null;
+                    }
+                }
+                if (key == null && !beanRegistrations.isEmpty()) {
+                    return null;
+                }
+                return new Key(Arrays.asList(
+                        key,
+                        ReflectionTestUtils.getFieldValue(configuration, "contextFactory").getClass(),
+                        Arrays.asList((Class<?>[]) ReflectionTestUtils.getFieldValue(configuration, "additionalContextInterfaces")),
+                        ReflectionTestUtils.getFieldValue(configuration, "allowBeanDefinitionOverriding"),
+                        ReflectionTestUtils.getFieldValue(configuration, "allowCircularReferences"),
+                        initializerTypes,
+                        properties((TestPropertyValues) ReflectionTestUtils.getFieldValue(configuration, "environmentProperties")),
+                        properties((TestPropertyValues) ReflectionTestUtils.getFieldValue(configuration, "systemProperties")),
+                        new Identity(ReflectionTestUtils.getFieldValue(configuration, "classLoader")),
+                        new Identity(ReflectionTestUtils.getFieldValue(configuration, "parent")),
+                        Arrays.asList(Configurations.getClasses((Collection<Configurations>) ReflectionTestUtils.getFieldValue(configuration, "configurations")))));
+            } catch (IllegalStateException | ClassCastException e) {
+                return null;
+            }
+        }
+
+        private static boolean isStateless(final Object initializer) {
+            return initializer instanceof StartupProfilingInitializer || StartupMode.isInitializer(initializer);
+        }
+
+        private static Map<String, Object> properties(final TestPropertyValues propertyValues) {
+            final StandardEnvironment environment = new StandardEnvironment();
+            propertyValues.applyTo(environment);
+            return new HashMap<>(((MapPropertySource) environment.getPropertySources().get(TEST_PROPERTY_SOURCE)).getSource());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key key && hash == key.hash && values.equals(key.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private static final class Identity {
+
+        private final Object object;
+
+        private Identity(final Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Identity identity && object == identity.object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+
+    }
+
+    /**
+     * Cached context, counting the consumers running on it. Guarded by the cache lock.
+     */
+    private static final class Entry {
+
+        private final ApplicationContextAssertProvider<?> context;
+        private final long startupNanos;
+        private int references;
+        private boolean evicted;
+
+        private Entry(final ApplicationContextAssertProvider<?> context, final long startupNanos) {
+            this.context = context;
+            this.startupNanos = startupNanos;
+        }
+
+        private Entry acquire() {
+            references++;
+            return this;
+        }
+
+        private void release() {
+            if (--references == 0 && evicted) {
+                close();
+            }
+        }
+
+        /**
+         * Close now if unused, else on the last {@link #release()}.
+         */
+        private void evict() {
+            evicted = true;
+            if (references == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            context.close();
+        }
+
+    }
+
+}
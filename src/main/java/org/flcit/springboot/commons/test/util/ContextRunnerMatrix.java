@@ -0,0 +1,236 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.test.context.assertj.ApplicationContextAssertProvider;
+import org.springframework.boot.test.context.runner.AbstractApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ContextConsumer;
+import org.springframework.util.Assert;
+
+/**
+ * Matrix of context runner variants and their expected outcome, run concurrently on a pool sized to the cores.
+ * <pre>
+ * ContextRunnerMatrix.create()
+ *     .hasSingleBean("enabled", runner.withPropertyValues("feature.enabled=true"), FeatureService.class)
+ *     .doesNotHaveBean("disabled", runner.withPropertyValues("feature.enabled=false"), FeatureService.class)
+ *     .hasFailed("invalid", runner.withPropertyValues("feature.mode=unknown"))
+ *     .assertAll();
+ * </pre>
+ * Every variant runs, and the outcome and startup time of all of them are reported together.
+ * Variants with {@code withSystemProperties} change the process-wide system properties while their context starts,
+ * they run one after the other once the concurrent variants are done, as do variants whose runner configuration
+ * cannot be read.
+ * The variants use the {@link ContextRunnerCache} when it is enabled, unless {@link #cache(boolean) opted out}.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class ContextRunnerMatrix {
+
+    private final List<Variant> variants = new ArrayList<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean cache = true;
+
+    private ContextRunnerMatrix() { }
+
+    /**
+     * @return
+     */
+    public static ContextRunnerMatrix create() {
+        return new ContextRunnerMatrix();
+    }
+
+    /**
+     * @param parallelism maximum number of contexts started at the same time, the number of cores by default
+     * @return this
+     */
+    public ContextRunnerMatrix parallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @param cache use the {@link ContextRunnerCache} when it is enabled, {@code true} by default;
+     * {@code false} starts a new context for every run, to measure its startup
+     * @return this
+     */
+    public ContextRunnerMatrix cache(boolean cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * @param <A>
+     * @param name
+     * @param contextRunner
+     * @param assertions
+     * @return this
+     */
+    public <A extends ApplicationContextAssertProvider<?>> ContextRunnerMatrix variant(String name, AbstractApplicationContextRunner<?, ?, A> contextRunner, ContextConsumer<? super A> assertions) {
+        Assert.hasText(name, "Name must not be empty");
+        Assert.notNull(contextRunner, "Context runner must not be null");
+        Assert.notNull(assertions, "Assertions must not be null");
+        variants.add(new Variant(name, hasSystemProperties(contextRunner), started -> run(contextRunner, context -> {
+            started.run();
+            assertions.accept(context);
+        })));
+        return this;
+    }
+
+    /**
+     * @param name
+     * @param contextRunner
+     * @param types
+     * @return this
+     */
+    public ContextRunnerMatrix hasSingleBean(String name, AbstractApplicationContextRunner<?, ?, ?> contextRunner, Class<?>... types) {
+        return variant(name, contextRunner, context -> {
+            for (Class<?> type : types) {
+                assertThat(context).hasSingleBean(type);
+            }
+        });
+    }
+
+    /**
+     * @param name
+     * @param contextRunner
+     * @param types
+     * @return this
+     */
+    public ContextRunnerMatrix doesNotHaveBean(String name, AbstractApplicationContextRunner<?, ?, ?> contextRunner, Class<?>... types) {
+        return variant(name, contextRunner, context -> {
+            for (Class<?> type : types) {
+                assertThat(context).doesNotHaveBean(type);
+            }
+        });
+    }
+
+    /**
+     * @param name
+     * @param contextRunner
+     * @return this
+     */
+    public ContextRunnerMatrix hasFailed(String name, AbstractApplicationContextRunner<?, ?, ?> contextRunner) {
+        return variant(name, contextRunner, context -> assertThat(context).hasFailed());
+    }
+
+    /**
+     * Run every variant then assert they all passed.
+     * @return
+     */
+    public ContextRunnerMatrixResult assertAll() {
+        return run().assertAllPassed();
+    }
+
+    /**
+     * @return the outcome of every variant, in the order they were added
+     */
+    public ContextRunnerMatrixResult run() {
+        final long start = System.nanoTime();
+        final List<ContextRunnerMatrixResult.Outcome> outcomes = new ArrayList<>(variants.size());
+        final ExecutorService executor = ParallelPathAssertions.newDaemonPool(Math.max(1, Math.min(parallelism, variants.size())), "context-runner-");
+        try {
+            final List<Future<ContextRunnerMatrixResult.Outcome>> futures = new ArrayList<>(variants.size());
+            for (Variant variant : variants) {
+                futures.add(variant.serial ? null : executor.submit(variant::run));
+            }
+            for (int i = 0; i < variants.size(); i++) {
+                outcomes.add(futures.get(i) != null ? futures.get(i).get() : null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < variants.size(); i++) {
+            if (outcomes.get(i) == null) {
+                outcomes.set(i, variants.get(i).run());
+            }
+        }
+        return new ContextRunnerMatrixResult(outcomes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private <A extends ApplicationContextAssertProvider<?>> void run(AbstractApplicationContextRunner<?, ?, A> contextRunner, ContextConsumer<? super A> consumer) {
+        if (cache) {
+            ContextRunnerUtils.run(contextRunner, consumer);
+        } else {
+            contextRunner.run(consumer);
+        }
+    }
+
+    /**
+     * @return {@code true} if the runner sets system properties, or if its configuration cannot be read
+     */
+    private static boolean hasSystemProperties(AbstractApplicationContextRunner<?, ?, ?> contextRunner) {
+        final Map<String, Object> systemProperties = ContextRunnerCache.getSystemProperties(contextRunner);
+        return systemProperties == null || !systemProperties.isEmpty();
+    }
+
+    /**
+     * Run of a variant, notifying when its context is started.
+     */
+    @FunctionalInterface
+    private interface VariantRun {
+
+        @SuppressWarnings("java:S112")
+        void run(Runnable started) throws Throwable;
+
+    }
+
+    private static final class Variant {
+
+        private final String name;
+        private final boolean serial;
+        private final VariantRun run;
+
+        private Variant(String name, boolean serial, VariantRun run) {
+            this.name = name;
+            this.serial = serial;
+            this.run = run;
+        }
+
+        private ContextRunnerMatrixResult.Outcome run() {
+            final long start = System.nanoTime();
+            final long[] started = { -1 };
+            Throwable failure = null;
+            try {
+                run.run(() -> started[0] = System.nanoTime());
+            } catch (Throwable t) {
+                failure = t;
+            }
+            final long end = System.nanoTime();
+            return new ContextRunnerMatrixResult.Outcome(name, failure,
+                    started[0] < 0 ? null : Duration.ofNanos(started[0] - start), Duration.ofNanos(end - start));
+        }
+
+    }
+
+}
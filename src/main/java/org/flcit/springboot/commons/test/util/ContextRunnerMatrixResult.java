@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.opentest4j.MultipleFailuresError;
+
+/**
+ * Outcome of a {@link ContextRunnerMatrix} run.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class ContextRunnerMatrixResult {
+
+    private final List<Outcome> outcomes;
+    private final Duration elapsed;
+
+    ContextRunnerMatrixResult(List<Outcome> outcomes, Duration elapsed) {
+        this.outcomes = Collections.unmodifiableList(outcomes);
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return the outcome of every variant, in the order they were added
+     */
+    public List<Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return this result
+     */
+    public ContextRunnerMatrixResult assertAllPassed() {
+        final List<Throwable> failures = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.failure != null) {
+                failures.add(outcome.failure);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new MultipleFailuresError(failures.size() + " of " + outcomes.size() + " context runner variants failed in " + elapsed.toMillis() + " ms" + report(), failures);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return outcomes.size() + " context runner variants in " + elapsed.toMillis() + " ms" + report();
+    }
+
+    private String report() {
+        final StringBuilder sb = new StringBuilder();
+        for (Outcome outcome : outcomes) {
+            sb.append(System.lineSeparator()).append('\t').append(outcome);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Outcome of a variant.
+     */
+    public static final class Outcome {
+
+        private final String name;
+        private final Throwable failure;
+        private final Duration startup;
+        private final Duration elapsed;
+
+        Outcome(String name, Throwable failure, Duration startup, Duration elapsed) {
+            this.name = name;
+            this.failure = failure;
+            this.startup = startup;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return
+         */
+        public boolean isPassed() {
+            return failure == null;
+        }
+
+        /**
+         * @return the exception or assertion failure, {@code null} if passed
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return the time until the context was handed to the assertions, {@code null} if it never was
+         */
+        public Duration getStartup() {
+            return startup;
+        }
+
+        /**
+         * @return the time of the startup, the assertions and the close
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s -> startup %s, total %d ms", failure != null ? "[FAILED]" : "[OK]", name,
+                    startup != null ? startup.toMillis() + " ms" : "-", elapsed.toMillis());
+        }
+
+    }
+
+}
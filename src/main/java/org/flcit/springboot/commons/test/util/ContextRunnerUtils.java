@@ -22,14 +22,22 @@ import static org.mockito.Mockito.mock;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.context.annotation.Configurations;
+import org.springframework.boot.test.context.assertj.ApplicationContextAssertProvider;
 import org.springframework.boot.test.context.assertj.AssertableWebApplicationContext;
 import org.springframework.boot.test.context.runner.AbstractApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ContextConsumer;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.Assert;
 import org.springframework.web.context.ConfigurableWebApplicationContext;
 
 /**
@@ -39,6 +47,14 @@ import org.springframework.web.context.ConfigurableWebApplicationContext;
  */
 public final class ContextRunnerUtils {
 
+    private static final String[] BASE_PROPERTY_VALUES = {
+        PropertyTestUtils.getValue("spring.jackson", "default-property-inclusion", "non_empty")
+    };
+
+    private static final StartupProfilingInitializer STARTUP_PROFILING = new StartupProfilingInitializer();
+
+    private static ConfigurableApplicationContext sharedParentContext;
+
     private ContextRunnerUtils() { }
 
     /**
@@ -53,16 +69,83 @@ public final class ContextRunnerUtils {
                             WebMvcAutoConfiguration.class
                         )
                 )
-                .withPropertyValues(
-                    PropertyTestUtils.getValue("spring.jackson", "default-property-inclusion", "non_empty")
-                );
+                .withPropertyValues(BASE_PROPERTY_VALUES);
+    }
+
+    /**
+     * Same configuration as {@link #getBaseContextRunnerForWebMvc()}, with the Jackson and HttpMessageConverters
+     * auto-configurations started once in a {@link #getSharedParentContext() shared parent context}:
+     * each run only starts the WebMvc auto-configuration and the beans of the variant in a child context.
+     * <p>Limits, the shared beans ({@code ObjectMapper}, {@code Jackson2ObjectMapperBuilder}, {@code HttpMessageConverters})
+     * being the same instances for every variant:
+     * <ul>
+     * <li>variants must not mutate them;</li>
+     * <li>{@code spring.jackson.*} properties, {@code Module} or customizer beans of a variant do not apply to them,
+     * and an {@code ObjectMapper} bean of a variant is not used by the message converters;</li>
+     * <li>bean assertions include the ancestors, so the shared beans are always found;</li>
+     * <li>controllers, filters and every web bean must stay in the child context.</li>
+     * </ul>
+     * Variants needing any of these use {@link #getBaseContextRunnerForWebMvc()}.
+     * @return
+     */
+    public static WebApplicationContextRunner getSharedBaseContextRunnerForWebMvc() {
+        return new WebApplicationContextRunner()
+                .withParent(getSharedParentContext())
+                .withConfiguration(AutoConfigurations.of(WebMvcAutoConfiguration.class))
+                .withPropertyValues(BASE_PROPERTY_VALUES);
+    }
+
+    /**
+     * @return the parent context of {@link #getSharedBaseContextRunnerForWebMvc()}, started on the first call
+     * and closed at JVM shutdown
+     */
+    public static synchronized ConfigurableApplicationContext getSharedParentContext() {
+        if (sharedParentContext == null || !sharedParentContext.isActive()) {
+            final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+            TestPropertyValues.of(BASE_PROPERTY_VALUES).applyTo(context);
+            context.register(Configurations.getClasses(AutoConfigurations.of(
+                    HttpMessageConvertersAutoConfiguration.class,
+                    JacksonAutoConfiguration.class
+                )));
+            context.refresh();
+            context.registerShutdownHook();
+            sharedParentContext = context;
+        }
+        return sharedParentContext;
+    }
+
+    /**
+     * Run the same assertions on the runner in every {@link StartupMode}, one mode after the other so the startup times compare.
+     * Each mode is run once to warm up the JVM, then measured. The {@link ContextRunnerCache} is not used,
+     * every run starts its context.
+     * @param contextRunner
+     * @param assertions
+     * @return the outcome and startup time of each mode
+     */
+    public static ContextRunnerMatrixResult compareStartupModes(final WebApplicationContextRunner contextRunner, final ContextConsumer<? super AssertableWebApplicationContext> assertions) {
+        final ContextRunnerMatrix matrix = ContextRunnerMatrix.create().parallelism(1).cache(false);
+        for (StartupMode mode : StartupMode.values()) {
+            matrix.variant(mode.name(), mode.apply(contextRunner), assertions);
+        }
+        matrix.run();
+        return matrix.run();
+    }
+
+    /**
+     * Record the startup steps of the contexts of the runner, see {@link StartupProfile}.
+     * @param <T>
+     * @param contextRunner
+     * @return
+     */
+    public static <T extends AbstractApplicationContextRunner<T, ?, ?>> T withStartupProfiling(final T contextRunner) {
+        return contextRunner.withInitializer(STARTUP_PROFILING);
     }
 
     /**
      * @param contextRunner
      */
     public static void assertHasFailed(final AbstractApplicationContextRunner<?, ?, AssertableWebApplicationContext> contextRunner) {
-        contextRunner.run(context -> assertThat(context).hasFailed());
+        run(contextRunner, context -> assertThat(context).hasFailed());
     }
 
     /**
@@ -70,7 +153,7 @@ public final class ContextRunnerUtils {
      * @param types
      */
     public static void assertHasSingleBean(final AbstractApplicationContextRunner<?, ?, AssertableWebApplicationContext> contextRunner, Class<?>... types) {
-        contextRunner.run(context -> assertHasSingleBean(context, types));
+        run(contextRunner, context -> assertHasSingleBean(context, types));
     }
 
     /**
@@ -88,13 +171,26 @@ public final class ContextRunnerUtils {
      * @param types
      */
     public static void assertDoesNotHaveBean(final AbstractApplicationContextRunner<?, ?, AssertableWebApplicationContext> contextRunner, Class<?>... types) {
-        contextRunner.run(context -> {
+        run(contextRunner, context -> {
             for (Class<?> type : types) {
                 assertThat(context).doesNotHaveBean(type);
             }
         });
     }
 
+    /**
+     * @param <A>
+     * @param contextRunner
+     * @param consumer
+     */
+    static <A extends ApplicationContextAssertProvider<?>> void run(final AbstractApplicationContextRunner<?, ?, A> contextRunner, final ContextConsumer<? super A> consumer) {
+        if (ContextRunnerCache.isEnabled()) {
+            ContextRunnerCache.run(contextRunner, consumer);
+        } else {
+            contextRunner.run(consumer);
+        }
+    }
+
     /**
      * @param contextRunner
      * @param beansType
@@ -112,11 +208,53 @@ public final class ContextRunnerUtils {
      */
     @SuppressWarnings({ "unchecked", "rawtypes", "java:S1452" })
     public static SimpleEntry<AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext>, Map<Class<Object>, Object>> withMockBeans(AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext> contextRunner, Class... beansType) {
+        return withMockBeans(contextRunner, beansType, beanType -> mock(beanType), null);
+    }
+
+    /**
+     * Same as {@link #withMockBeans(AbstractApplicationContextRunner, Class...)} with beans proxying the mocks
+     * with the latency, failures and concurrency limit of the behavior. The mocks of the map are stubbed and verified as usual.
+     * @param contextRunner
+     * @param behavior
+     * @param beansType
+     * @return
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes", "java:S1452" })
+    public static SimpleEntry<AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext>, Map<Class<Object>, Object>> withMockBeans(AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext> contextRunner, MockBehavior behavior, Class... beansType) {
+        Assert.notNull(behavior, "Behavior must not be null");
+        return withMockBeans(contextRunner, beansType, beanType -> mock(beanType), behavior);
+    }
+
+    /**
+     * Same as {@link #withMockBeans(AbstractApplicationContextRunner, Class...)} with reset mocks from the {@link MockBeanPool},
+     * to give back with {@link #releaseMockBeans(Map)} once the runs are done.
+     * @param contextRunner
+     * @param stubOnly mocks that do not record their invocations, they cannot be verified
+     * @param beansType
+     * @return
+     */
+    @SuppressWarnings({ "rawtypes", "java:S1452" })
+    public static SimpleEntry<AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext>, Map<Class<Object>, Object>> withPooledMockBeans(AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext> contextRunner, boolean stubOnly, Class... beansType) {
+        return withMockBeans(contextRunner, beansType, beanType -> MockBeanPool.acquire((Class<?>) beanType, stubOnly), null);
+    }
+
+    /**
+     * Give back the mocks of {@link #withPooledMockBeans(AbstractApplicationContextRunner, boolean, Class...)} to the pool,
+     * they must not be used any more.
+     * @param mockBeans
+     */
+    public static void releaseMockBeans(Map<Class<Object>, Object> mockBeans) {
+        mockBeans.values().forEach(MockBeanPool::release);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static SimpleEntry<AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext>, Map<Class<Object>, Object>> withMockBeans(AbstractApplicationContextRunner<?, ConfigurableWebApplicationContext, AssertableWebApplicationContext> contextRunner, Class[] beansType, Function<Class, Object> factory, MockBehavior behavior) {
         final Map<Class<Object>, Object> mockBeans = new HashMap<>(beansType.length);
         for (Class beanType : beansType) {
-            final Object mocked = mock(beanType);
+            final Object mocked = factory.apply(beanType);
             mockBeans.put(beanType, mocked);
-            contextRunner = contextRunner.withBean(beanType, () -> mocked);
+            final Object bean = behavior != null ? behavior.apply(beanType, mocked) : mocked;
+            contextRunner = contextRunner.withBean(beanType, () -> bean);
         }
         return new SimpleEntry<>(contextRunner, mockBeans);
     }
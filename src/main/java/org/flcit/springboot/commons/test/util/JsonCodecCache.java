@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Cache of the {@link ObjectMapper} of a {@link WebApplicationContext}
+ * and of the {@link ObjectWriter} / {@link ObjectReader} built from it for each type.
+ * <p>Entries are evicted when the context is closed.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class JsonCodecCache {
+
+    private static final ContextCache<WebApplicationContext, Codec> CACHE = new ContextCache<>();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private JsonCodecCache() { }
+
+    /**
+     * @param context
+     * @return the {@link ObjectMapper} bean of the context
+     */
+    public static ObjectMapper getObjectMapper(final WebApplicationContext context) {
+        return getCodec(context).objectMapper;
+    }
+
+    /**
+     * @param context
+     * @param type
+     * @return
+     */
+    public static ObjectWriter getWriter(final WebApplicationContext context, final Class<?> type) {
+        final Codec codec = getCodec(context);
+        return get(codec.writers, type, codec.objectMapper::writerFor);
+    }
+
+    /**
+     * @param context
+     * @param type
+     * @return
+     */
+    public static ObjectReader getReader(final WebApplicationContext context, final Class<?> type) {
+        final Codec codec = getCodec(context);
+        return getReader(codec, codec.objectMapper.constructType(type));
+    }
+
+    /**
+     * @param context
+     * @param type
+     * @return
+     */
+    public static ObjectReader getReader(final WebApplicationContext context, final TypeReference<?> type) {
+        final Codec codec = getCodec(context);
+        return getReader(codec, codec.objectMapper.constructType(type));
+    }
+
+    /**
+     * @param context
+     * @param type
+     * @return
+     */
+    public static ObjectReader getReader(final WebApplicationContext context, final JavaType type) {
+        return getReader(getCodec(context), type);
+    }
+
+    private static ObjectReader getReader(final Codec codec, final JavaType type) {
+        return get(codec.readers, type, codec.objectMapper::readerFor);
+    }
+
+    /**
+     * @return the number of writer and reader lookups served from the cache
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to resolve a mapper, a writer or a reader
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public static void resetStatistics() {
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    /**
+     * @param context
+     */
+    public static void evict(final WebApplicationContext context) {
+        CACHE.remove(context);
+    }
+
+    /**
+     * Evict every cached codec.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static Codec getCodec(final WebApplicationContext context) {
+        return CACHE.get(context, JsonCodecCache::createCodec);
+    }
+
+    private static Codec createCodec(final WebApplicationContext context) {
+        return new Codec(context.getBean(ObjectMapper.class));
+    }
+
+    private static <K, V> V get(final Map<K, V> cache, final K key, final Function<K, V> factory) {
+        V value = cache.get(key);
+        if (value != null) {
+            HITS.increment();
+            return value;
+        }
+        value = cache.computeIfAbsent(key, factory);
+        MISSES.increment();
+        return value;
+    }
+
+    private static final class Codec {
+
+        private final ObjectMapper objectMapper;
+        private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+        private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+        private Codec(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            MISSES.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import org.springframework.test.json.JsonAssert;
+import org.springframework.test.json.JsonComparator;
+import org.springframework.test.json.JsonCompareMode;
+
+/**
+ * Engine of the JSON content comparisons, chosen per call next to the comparison mode,
+ * see {@link JsonTestUtils#getComparator(JsonCompareEngine, boolean)}. {@link #JSON_ASSERT} by default.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public enum JsonCompareEngine {
+
+    /**
+     * JSONAssert, the Spring default.
+     */
+    JSON_ASSERT {
+        @Override
+        public JsonComparator comparator(JsonCompareMode mode) {
+            return JsonAssert.comparator(mode);
+        }
+    },
+
+    /**
+     * {@link StructuralJsonComparator}, for large documents and large unordered arrays.
+     */
+    STRUCTURAL {
+        @Override
+        public JsonComparator comparator(JsonCompareMode mode) {
+            return StructuralJsonComparator.of(mode);
+        }
+    };
+
+    /**
+     * @param mode
+     * @return
+     */
+    public abstract JsonComparator comparator(JsonCompareMode mode);
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.emptyOrNullString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.matchesRegex;
+import static org.hamcrest.Matchers.not;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.MatcherAssert;
+import org.opentest4j.MultipleFailuresError;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.Assert;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Batch of JSON path assertions on a response: the response body is parsed once into a document
+ * and every compiled expression is evaluated against it, instead of one parse per {@code jsonPath(...)} matcher.
+ * Every failure is reported at once.
+ * <pre>
+ * JsonPathAssertions.of(result)
+ *     .notEmptyOrNullAndMatchRegex("^[0-9]+$", "id", "reference")
+ *     .emptyOrNull("deletedAt")
+ *     .arrayHasSize("items", 10)
+ *     .assertAll();
+ * </pre>
+ * Fields without the {@code $.} prefix are relative to the root, as in {@link ResultActionsUtils}.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class JsonPathAssertions {
+
+    private final ResultActions result;
+    private final List<Check> checks = new ArrayList<>();
+
+    private JsonPathAssertions(ResultActions result) {
+        this.result = result;
+    }
+
+    /**
+     * @param result
+     * @return
+     */
+    public static JsonPathAssertions of(ResultActions result) {
+        Assert.notNull(result, "Result must not be null");
+        return new JsonPathAssertions(result);
+    }
+
+    /**
+     * @param field
+     * @param matcher
+     * @return this
+     */
+    public JsonPathAssertions value(String field, Matcher<?> matcher) {
+        Assert.notNull(matcher, "Matcher must not be null");
+        final String expression = ResultActionsUtils.getExpression(field);
+        checks.add(new Check(expression, JsonPathCache.get(expression), matcher));
+        return this;
+    }
+
+    /**
+     * @param fields
+     * @return this
+     */
+    public JsonPathAssertions emptyOrNull(String... fields) {
+        return addAll(fields, emptyOrNullString());
+    }
+
+    /**
+     * @param notExpectedValue
+     * @param fields
+     * @return this
+     */
+    public JsonPathAssertions notEmptyOrNullAndNotEqual(String notExpectedValue, String... fields) {
+        return addAll(fields, not(emptyOrNullString()), not(hasToString(notExpectedValue)));
+    }
+
+    /**
+     * @param notExpectedValue
+     * @param fields
+     * @return this
+     */
+    public JsonPathAssertions notEmptyOrNullAndNotEqual(Object notExpectedValue, String... fields) {
+        return addAll(fields, not(notExpectedValue instanceof CharSequence ? emptyOrNullString() : empty()), not(equalTo(notExpectedValue)));
+    }
+
+    /**
+     * @param regex
+     * @param fields
+     * @return this
+     */
+    public JsonPathAssertions notEmptyOrNullAndMatchRegex(String regex, String... fields) {
+        return addAll(fields, not(emptyOrNullString()), matchesRegex(regex));
+    }
+
+    /**
+     * @param regex
+     * @param fields
+     * @return this
+     */
+    public JsonPathAssertions notEmptyOrNullAndMatchRegex(Pattern regex, String... fields) {
+        return addAll(fields, not(emptyOrNullString()), matchesRegex(regex));
+    }
+
+    /**
+     * @param fields
+     * @return this
+     */
+    public JsonPathAssertions arrayNotEmpty(String... fields) {
+        return addAll(fields, not(empty()));
+    }
+
+    /**
+     * @param field
+     * @param size
+     * @return this
+     */
+    public JsonPathAssertions arrayHasSize(String field, int size) {
+        return value(field, hasSize(size));
+    }
+
+    /**
+     * @param field
+     * @param maxSize
+     * @return this
+     */
+    public JsonPathAssertions arrayHasSizeLessOrEqual(String field, int maxSize) {
+        return value(field, hasSize(lessThanOrEqualTo(maxSize)));
+    }
+
+    /**
+     * Parse the response body and evaluate every expression.
+     * @return the result
+     */
+    public ResultActions assertAll() {
+        if (checks.isEmpty()) {
+            return result;
+        }
+        final DocumentContext document = parse();
+        final List<Throwable> failures = new ArrayList<>();
+        for (Check check : checks) {
+            try {
+                check.evaluate(document);
+            } catch (AssertionError e) {
+                failures.add(e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new MultipleFailuresError(failures.size() + " of " + checks.size() + " JSON path assertions failed", failures);
+        }
+        return result;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private JsonPathAssertions addAll(String[] fields, Matcher<?>... matchers) {
+        final Matcher<?> matcher = matchers.length == 1 ? matchers[0] : allOf((Matcher[]) matchers);
+        for (String field : fields) {
+            value(field, matcher);
+        }
+        return this;
+    }
+
+    private DocumentContext parse() {
+        final String content = new String(result.andReturn().getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+        try {
+            return JsonPath.parse(content);
+        } catch (RuntimeException e) {
+            throw new AssertionError("Response content is not JSON", e);
+        }
+    }
+
+    private static final class Check {
+
+        private final String expression;
+        private final JsonPath path;
+        private final Matcher<?> matcher;
+
+        private Check(String expression, JsonPath path, Matcher<?> matcher) {
+            this.expression = expression;
+            this.path = path;
+            this.matcher = matcher;
+        }
+
+        /**
+         * Same messages as {@code MockMvcResultMatchers.jsonPath(expression, matcher)}.
+         */
+        @SuppressWarnings("unchecked")
+        private void evaluate(DocumentContext document) {
+            final Object value;
+            try {
+                value = document.read(path);
+            } catch (RuntimeException e) {
+                throw new AssertionError("No value at JSON path \"" + expression + "\"", e);
+            }
+            MatcherAssert.assertThat("JSON path \"" + expression + "\"", value, (Matcher<Object>) matcher);
+        }
+
+    }
+
+}
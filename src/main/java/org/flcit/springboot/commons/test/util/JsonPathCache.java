@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Process-wide cache of compiled {@link JsonPath} expressions, bounded with a least recently used eviction.
+ * <p>Used by {@link JsonPathAssertions}, and so by {@link ResultActionsUtils}: the same field paths checked
+ * by every test or every iteration of a load run are compiled once.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class JsonPathCache {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final Map<String, JsonPath> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JsonPath> eldest) {
+            return size() > maximumSize;
+        }
+
+    };
+    private static int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    private JsonPathCache() { }
+
+    /**
+     * @param expression
+     * @return the compiled expression
+     */
+    public static JsonPath get(final String expression) {
+        Assert.hasLength(expression, "Expression must not be empty");
+        synchronized (CACHE) {
+            final JsonPath path = CACHE.get(expression);
+            if (path != null) {
+                HITS.increment();
+                return path;
+            }
+        }
+        // compiled outside the lock, a concurrent miss on the same expression only compiles it twice
+        final JsonPath path = JsonPath.compile(expression);
+        MISSES.increment();
+        synchronized (CACHE) {
+            CACHE.put(expression, path);
+        }
+        return path;
+    }
+
+    /**
+     * @param maximumSize maximum number of cached expressions, 1024 by default
+     */
+    public static void setMaximumSize(final int maximumSize) {
+        Assert.isTrue(maximumSize > 0, "Maximum size must be positive");
+        synchronized (CACHE) {
+            JsonPathCache.maximumSize = maximumSize;
+            final Iterator<Map.Entry<String, JsonPath>> iterator = CACHE.entrySet().iterator();
+            while (CACHE.size() > maximumSize) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to compile the expression
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public static void resetStatistics() {
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    /**
+     * @return the number of cached expressions
+     */
+    public static int size() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+    /**
+     * Evict every cached expression.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.test.json.JsonComparison;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Golden-file assertion of a JSON response.
+ * <p>The snapshot file is memory-mapped and compared in three steps, each one only on a mismatch of the previous one:
+ * <ol>
+ * <li>the raw bytes of the response and of the file;</li>
+ * <li>the {@link StructuralJsonComparator#canonicalHash(JsonParser) canonical hash} of both documents,
+ * streamed without building any tree, so a reformatted file still matches at once;</li>
+ * <li>the full comparison of the {@link #engine(JsonCompareEngine) engine}, for the difference report
+ * or a {@link org.springframework.test.json.JsonCompareMode#LENIENT LENIENT} match when not {@link #strict(boolean) strict}.</li>
+ * </ol>
+ * In update mode (system property {@code snapshot.update=true}), a missing or different snapshot is rewritten with the
+ * response instead of failing. The file is then read on the heap rather than mapped, since a mapped file cannot be
+ * rewritten on every platform.
+ * Instances are immutable.
+ * <pre>
+ * result.andExpect(JsonSnapshot.of(Path.of("src/test/resources/snapshots/users.json")));
+ * </pre>
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class JsonSnapshot implements ResultMatcher {
+
+    /**
+     * System property enabling the update mode.
+     */
+    public static final String UPDATE_PROPERTY = "snapshot.update";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Path file;
+    private final boolean strict;
+    private final JsonCompareEngine engine;
+    private final boolean update;
+
+    private JsonSnapshot(Path file, boolean strict, JsonCompareEngine engine, boolean update) {
+        this.file = file;
+        this.strict = strict;
+        this.engine = engine;
+        this.update = update;
+    }
+
+    /**
+     * @param file
+     * @return
+     */
+    public static JsonSnapshot of(Path file) {
+        Assert.notNull(file, "File must not be null");
+        return new JsonSnapshot(file, true, JsonCompareEngine.JSON_ASSERT, Boolean.getBoolean(UPDATE_PROPERTY));
+    }
+
+    /**
+     * @param strict comparison mode on a mismatch, strict by default
+     * @return a copy with the comparison mode
+     */
+    public JsonSnapshot strict(boolean strict) {
+        return new JsonSnapshot(file, strict, engine, update);
+    }
+
+    /**
+     * @param engine engine of the comparison on a mismatch, {@link JsonCompareEngine#JSON_ASSERT JSON_ASSERT} by default
+     * @return a copy with the engine
+     */
+    public JsonSnapshot engine(JsonCompareEngine engine) {
+        Assert.notNull(engine, "Engine must not be null");
+        return new JsonSnapshot(file, strict, engine, update);
+    }
+
+    /**
+     * @param update rewrite the snapshot instead of failing, {@code snapshot.update} system property by default
+     * @return a copy with the update mode
+     */
+    public JsonSnapshot update(boolean update) {
+        return new JsonSnapshot(file, strict, engine, update);
+    }
+
+    @Override
+    public void match(MvcResult result) {
+        assertMatches(result.getResponse().getContentAsByteArray());
+    }
+
+    /**
+     * @param actual JSON document in UTF-8
+     */
+    public void assertMatches(byte[] actual) {
+        if (!Files.isRegularFile(file)) {
+            if (!update) {
+                throw new AssertionError("Snapshot " + file + " not found, run with -D" + UPDATE_PROPERTY + "=true to create it");
+            }
+            write(actual);
+            return;
+        }
+        final JsonComparison comparison = compare(update ? read() : map(), actual);
+        if (comparison == null) {
+            return;
+        }
+        if (update) {
+            write(actual);
+            return;
+        }
+        throw new AssertionError("Snapshot " + file + " does not match: " + comparison.getMessage());
+    }
+
+    /**
+     * @return {@code null} on a fast-path match
+     */
+    private JsonComparison compare(ByteBuffer expected, byte[] actual) {
+        if (expected.equals(ByteBuffer.wrap(actual))) {
+            return null;
+        }
+        try (InputStream expectedStream = new ByteBufferBackedInputStream(expected.duplicate());
+                JsonParser expectedParser = JSON_FACTORY.createParser(expectedStream);
+                JsonParser actualParser = JSON_FACTORY.createParser(actual)) {
+            if (StructuralJsonComparator.canonicalHash(expectedParser) == StructuralJsonComparator.canonicalHash(actualParser)) {
+                return null;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // not JSON or empty, reported below
+        }
+        final String expectedJson = StandardCharsets.UTF_8.decode(expected.duplicate()).toString();
+        final String actualJson = new String(actual, StandardCharsets.UTF_8);
+        if (actualJson.isBlank() || expectedJson.isBlank()) {
+            return JsonComparison.mismatch(actualJson.isBlank() ? "empty response" : "empty snapshot");
+        }
+        final JsonComparison comparison = JsonTestUtils.getComparator(engine, strict).compare(expectedJson, actualJson);
+        return comparison.getResult() == JsonComparison.Result.MATCH ? null : comparison;
+    }
+
+    private MappedByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ByteBuffer read() {
+        try {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(byte[] actual) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, actual);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -16,7 +16,9 @@
 
 package org.flcit.springboot.commons.test.util;
 
+import org.springframework.test.json.JsonComparator;
 import org.springframework.test.json.JsonCompareMode;
+import org.springframework.util.Assert;
 
 /**
  * 
@@ -35,4 +37,22 @@ public final class JsonTestUtils {
         return strict ? JsonCompareMode.STRICT : JsonCompareMode.LENIENT;
     }
 
+    /**
+     * @param strict
+     * @return the comparator of the {@link JsonCompareEngine#JSON_ASSERT default engine}
+     */
+    public static JsonComparator getComparator(boolean strict) {
+        return getComparator(JsonCompareEngine.JSON_ASSERT, strict);
+    }
+
+    /**
+     * @param engine
+     * @param strict
+     * @return the comparator of the engine
+     */
+    public static JsonComparator getComparator(JsonCompareEngine engine, boolean strict) {
+        Assert.notNull(engine, "Engine must not be null");
+        return engine.comparator(getMode(strict));
+    }
+
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Time budget of a request: the request is first sent {@link #warmup(int) warm-up} times so JIT and lazy
+ * initialization do not count, then {@link #repeats(int) repeated} and the {@link #percentile(double) percentile}
+ * of the measured latencies must not exceed the budget.
+ * Only the dispatch is timed: the request, body serialization included, is built before the clock starts.
+ * Every response must have the status of the first one, so a fast error response does not pass the budget.
+ * <pre>
+ * MvcUtils.assertGetJsonResponseWithin(context, "/api/items", expected, LatencyBudget.of(Duration.ofMillis(5)).percentile(90));
+ * </pre>
+ * Instances are immutable.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class LatencyBudget {
+
+    private static final int DEFAULT_WARMUP = 20;
+    private static final int DEFAULT_REPEATS = 30;
+
+    private final Duration budget;
+    private final int warmup;
+    private final int repeats;
+    private final double percentile;
+
+    private LatencyBudget(Duration budget, int warmup, int repeats, double percentile) {
+        this.budget = budget;
+        this.warmup = warmup;
+        this.repeats = repeats;
+        this.percentile = percentile;
+    }
+
+    /**
+     * @param budget maximum median latency
+     * @return
+     */
+    public static LatencyBudget of(Duration budget) {
+        Assert.isTrue(budget != null && !budget.isNegative() && !budget.isZero(), "Budget must be positive");
+        return new LatencyBudget(budget, DEFAULT_WARMUP, DEFAULT_REPEATS, 50);
+    }
+
+    /**
+     * @param warmup number of requests sent before the measure
+     * @return a copy with the warm-up
+     */
+    public LatencyBudget warmup(int warmup) {
+        Assert.isTrue(warmup >= 0, "Warmup must not be negative");
+        return new LatencyBudget(budget, warmup, repeats, percentile);
+    }
+
+    /**
+     * @param repeats number of measured requests
+     * @return a copy with the repeats
+     */
+    public LatencyBudget repeats(int repeats) {
+        Assert.isTrue(repeats > 0, "Repeats must be positive");
+        return new LatencyBudget(budget, warmup, repeats, percentile);
+    }
+
+    /**
+     * @param percentile between 0 and 100, 50 (median) by default
+     * @return a copy with the percentile
+     */
+    public LatencyBudget percentile(double percentile) {
+        Assert.isTrue(percentile > 0 && percentile <= 100, "Percentile must be between 0 and 100");
+        return new LatencyBudget(budget, warmup, repeats, percentile);
+    }
+
+    /**
+     * @param context
+     * @param request called for each request, request builders are not reusable
+     * @return the measured percentile
+     */
+    public Duration assertWithin(WebApplicationContext context, Supplier<? extends RequestBuilder> request) {
+        return assertWithin(MockMvcCache.get(context), request);
+    }
+
+    /**
+     * @param mockMvc
+     * @param request called for each request, request builders are not reusable
+     * @return the measured percentile
+     */
+    public Duration assertWithin(MockMvc mockMvc, Supplier<? extends RequestBuilder> request) {
+        return assertWithin(mockMvc, request, perform(mockMvc, request.get()).getResponse().getStatus());
+    }
+
+    /**
+     * @param mockMvc
+     * @param request called for each request, request builders are not reusable
+     * @param expectedStatus status of every response, the one of an already asserted request
+     * @return the measured percentile
+     */
+    public Duration assertWithin(MockMvc mockMvc, Supplier<? extends RequestBuilder> request, int expectedStatus) {
+        for (int i = 0; i < warmup; i++) {
+            assertStatus(expectedStatus, perform(mockMvc, request.get()));
+        }
+        final long[] latencies = new long[repeats];
+        for (int i = 0; i < repeats; i++) {
+            final RequestBuilder requestBuilder = request.get();
+            final long start = System.nanoTime();
+            final MvcResult result = perform(mockMvc, requestBuilder);
+            latencies[i] = System.nanoTime() - start;
+            assertStatus(expectedStatus, result);
+        }
+        Arrays.sort(latencies);
+        final Duration actual = Duration.ofNanos(latencies[Math.max(0, (int) Math.ceil(percentile / 100 * repeats) - 1)]);
+        assertTrue(actual.compareTo(budget) <= 0, () -> "p" + percentile + " over " + repeats + " requests "
+                + LatencyHistogram.format(actual) + " exceeds the budget of " + LatencyHistogram.format(budget)
+                + " (warm-up " + warmup + ", min " + LatencyHistogram.format(Duration.ofNanos(latencies[0]))
+                + ", max " + LatencyHistogram.format(Duration.ofNanos(latencies[repeats - 1])) + ")");
+        return actual;
+    }
+
+    private static void assertStatus(int expectedStatus, MvcResult result) {
+        assertEquals(expectedStatus, result.getResponse().getStatus(), "Status of a budget request");
+    }
+
+    private static MvcResult perform(MockMvc mockMvc, RequestBuilder requestBuilder) {
+        try {
+            return mockMvc.perform(requestBuilder).andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "p" + percentile + " <= " + LatencyHistogram.format(budget) + " over " + repeats + " requests after " + warmup + " warm-up";
+    }
+
+}
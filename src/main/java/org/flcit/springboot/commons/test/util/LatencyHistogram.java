@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.util.Assert;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds with a relative precision of about 1.5%.
+ * <p>The footprint is constant whatever the number of recorded values.
+ * This class is not thread-safe: record on one histogram per thread and {@link #add(LatencyHistogram) merge} them.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * @param nanos
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * @param other
+     */
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return
+     */
+    public Duration getMin() {
+        return Duration.ofNanos(totalCount == 0 ? 0 : min);
+    }
+
+    /**
+     * @return
+     */
+    public Duration getMax() {
+        return Duration.ofNanos(max);
+    }
+
+    /**
+     * @return
+     */
+    public Duration getMean() {
+        return Duration.ofNanos(totalCount == 0 ? 0 : sum / totalCount);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest latency of the bucket holding the percentile, never more than {@link #getMax()}
+     */
+    public Duration getPercentile(final double percentile) {
+        Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+        if (totalCount == 0) {
+            return Duration.ZERO;
+        }
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts[i];
+            if (count >= target) {
+                return Duration.ofNanos(Math.min(max, highestValue(i)));
+            }
+        }
+        return getMax();
+    }
+
+    private static int index(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    private static long highestValue(final int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_HALF - 1;
+        final long mantissa = index - (long) shift * SUB_BUCKET_HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + totalCount
+                + ", min=" + format(getMin())
+                + ", p50=" + format(getPercentile(50))
+                + ", p90=" + format(getPercentile(90))
+                + ", p99=" + format(getPercentile(99))
+                + ", max=" + format(getMax());
+    }
+
+    static String format(final Duration duration) {
+        return String.format(Locale.ROOT, "%.3f ms", duration.toNanos() / 1_000_000d);
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mockito.MockingDetails;
+import org.mockito.Mockito;
+import org.mockito.mock.MockCreationSettings;
+import org.springframework.util.Assert;
+
+/**
+ * Process-wide pool of mocks keyed by type, used by {@link ContextRunnerUtils#withPooledMockBeans(org.springframework.boot.test.context.runner.AbstractApplicationContextRunner, boolean, Class...)}.
+ * <p>A mock is created once per type and concurrent use, then mocks are {@link Mockito#reset(Object[]) reset}
+ * when {@link #release(Object) released} and handed out again, so long suites do not keep creating mocks of
+ * large types. A mock must not be used any more once released.
+ * <p>{@code stubOnly} mocks do not record their invocations, they cannot be verified but their memory does not
+ * grow with the number of calls.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MockBeanPool {
+
+    private static final Map<Class<?>, Deque<Object>> MOCKS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Deque<Object>> STUB_ONLY_MOCKS = new ConcurrentHashMap<>();
+    private static final LongAdder CREATED = new LongAdder();
+    private static final LongAdder REUSED = new LongAdder();
+
+    private MockBeanPool() { }
+
+    /**
+     * @param <T>
+     * @param type
+     * @param stubOnly
+     * @return a reset mock of the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T acquire(final Class<T> type, final boolean stubOnly) {
+        Assert.notNull(type, "Type must not be null");
+        final Deque<Object> free = getFree(type, stubOnly);
+        final Object pooled;
+        synchronized (free) {
+            pooled = free.pollFirst();
+        }
+        if (pooled != null) {
+            REUSED.increment();
+            return (T) pooled;
+        }
+        CREATED.increment();
+        return stubOnly ? mock(type, withSettings().stubOnly()) : mock(type);
+    }
+
+    /**
+     * @param mocked a mock acquired from the pool
+     */
+    public static void release(final Object mocked) {
+        final MockingDetails details = Mockito.mockingDetails(mocked);
+        Assert.isTrue(details.isMock(), "Object must be a mock");
+        final MockCreationSettings<?> settings = details.getMockCreationSettings();
+        final Deque<Object> free = getFree(settings.getTypeToMock(), settings.isStubOnly());
+        synchronized (free) {
+            // a mock released twice would be handed out twice
+            if (!free.contains(mocked)) {
+                // reset before pooling, so idle mocks do not keep the stubbings and invocations of their last use
+                Mockito.reset(mocked);
+                free.addFirst(mocked);
+            }
+        }
+    }
+
+    /**
+     * @return the number of mocks created by the pool
+     */
+    public static long getCreatedCount() {
+        return CREATED.sum();
+    }
+
+    /**
+     * @return the number of mocks handed out again
+     */
+    public static long getReusedCount() {
+        return REUSED.sum();
+    }
+
+    /**
+     * Reset the created and reused counters.
+     */
+    public static void resetStatistics() {
+        CREATED.reset();
+        REUSED.reset();
+    }
+
+    /**
+     * Drop every free mock.
+     */
+    public static void clear() {
+        MOCKS.clear();
+        STUB_ONLY_MOCKS.clear();
+    }
+
+    private static Deque<Object> getFree(final Class<?> type, final boolean stubOnly) {
+        return (stubOnly ? STUB_ONLY_MOCKS : MOCKS).computeIfAbsent(type, key -> new ArrayDeque<>());
+    }
+
+}
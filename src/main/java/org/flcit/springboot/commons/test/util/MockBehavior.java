@@ -0,0 +1,275 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Behavior of a slow or flaky downstream service given to a mock bean: a latency distribution,
+ * an error rate and a concurrency limit, applied to every call before the mock answers.
+ * <pre>
+ * MockBehavior slow = MockBehavior.longTailLatency(Duration.ofMillis(20), Duration.ofMillis(400)).errorRate(0.05).concurrencyLimit(4);
+ * SimpleEntry&lt;...&gt; runner = ContextRunnerUtils.withMockBeans(baseRunner, slow, PricingClient.class);
+ * when((PricingClient) runner.getValue().get(PricingClient.class)).getPrice(any()).thenReturn(price);
+ * runner.getKey().run(context -&gt; MvcUtils.assertGetJsonResponseWithin(context, "/api/quote", expected, LatencyBudget.of(Duration.ofMillis(100)).percentile(95)));
+ * </pre>
+ * The bean is a proxy of the mock, which stays the one to stub and verify. Each proxy has its own concurrency limit:
+ * calls above it wait for a permit, as on a saturated service. The methods of {@link Object} are not affected.
+ * The statistics are shared by every proxy of the behavior.
+ * <p>Instances are immutable: each configuration method returns a copy, with its own statistics.
+ * With a {@link #seed(long) seed}, the latency and the failure of the n-th call through the proxies of the behavior
+ * are drawn from a source derived from the seed and n, so they are the same on every run whatever the calling thread.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MockBehavior {
+
+    // z-score of the 99th percentile of the normal distribution
+    private static final double Z_99 = 2.3263478740408408;
+    private static final int LONG_TAIL_CAP = 10;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final Supplier<? extends Throwable> DEFAULT_ERROR = () -> new IllegalStateException("Injected failure");
+
+    private final Latency latency;
+    private final double errorRate;
+    private final Supplier<? extends Throwable> error;
+    private final int concurrencyLimit;
+    private final Long seed;
+
+    private final AtomicLong seededCalls = new AtomicLong();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+    private MockBehavior(Latency latency) {
+        this(latency, 0, DEFAULT_ERROR, 0, null);
+    }
+
+    private MockBehavior(Latency latency, double errorRate, Supplier<? extends Throwable> error, int concurrencyLimit, Long seed) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.error = error;
+        this.concurrencyLimit = concurrencyLimit;
+        this.seed = seed;
+    }
+
+    /**
+     * @return a behavior without latency
+     */
+    public static MockBehavior none() {
+        return new MockBehavior(random -> 0);
+    }
+
+    /**
+     * @param latency
+     * @return
+     */
+    public static MockBehavior fixedLatency(Duration latency) {
+        Assert.isTrue(latency != null && !latency.isNegative(), "Latency must not be negative");
+        final long nanos = latency.toNanos();
+        return new MockBehavior(random -> nanos);
+    }
+
+    /**
+     * @param min
+     * @param max
+     * @return
+     */
+    public static MockBehavior uniformLatency(Duration min, Duration max) {
+        Assert.isTrue(min != null && !min.isNegative() && max != null && min.compareTo(max) <= 0, "Latency range must be positive and ordered");
+        final long minNanos = min.toNanos();
+        final long range = max.toNanos() - minNanos;
+        return new MockBehavior(random -> minNanos + (range == 0 ? 0 : (long) (random.nextDouble() * range)));
+    }
+
+    /**
+     * Log-normal latency, capped at 10 times the 99th percentile.
+     * @param median
+     * @param p99 99th percentile
+     * @return
+     */
+    public static MockBehavior longTailLatency(Duration median, Duration p99) {
+        Assert.isTrue(median != null && !median.isNegative() && !median.isZero() && p99 != null && median.compareTo(p99) <= 0, "Median must be positive and less than the 99th percentile");
+        final double mu = Math.log(median.toNanos());
+        final double sigma = (Math.log(p99.toNanos()) - mu) / Z_99;
+        final long cap = p99.toNanos() * LONG_TAIL_CAP;
+        return new MockBehavior(random -> Math.min(cap, (long) Math.exp(mu + sigma * random.nextGaussian())));
+    }
+
+    /**
+     * @param errorRate probability of failure of a call, between 0 and 1
+     * @return a copy with the error rate
+     */
+    public MockBehavior errorRate(double errorRate) {
+        Assert.isTrue(errorRate >= 0 && errorRate <= 1, "Error rate must be between 0 and 1");
+        return new MockBehavior(latency, errorRate, error, concurrencyLimit, seed);
+    }
+
+    /**
+     * @param error thrown by the failed calls, an {@link IllegalStateException} by default
+     * @return a copy with the error
+     */
+    public MockBehavior error(Supplier<? extends Throwable> error) {
+        Assert.notNull(error, "Error must not be null");
+        return new MockBehavior(latency, errorRate, error, concurrencyLimit, seed);
+    }
+
+    /**
+     * @param concurrencyLimit maximum number of calls at the same time on a bean, unlimited by default
+     * @return a copy with the concurrency limit
+     */
+    public MockBehavior concurrencyLimit(int concurrencyLimit) {
+        Assert.isTrue(concurrencyLimit > 0, "Concurrency limit must be positive");
+        return new MockBehavior(latency, errorRate, error, concurrencyLimit, seed);
+    }
+
+    /**
+     * @param seed of the latencies and failures, random by default
+     * @return a copy with the seed
+     */
+    public MockBehavior seed(long seed) {
+        return new MockBehavior(latency, errorRate, error, concurrencyLimit, seed);
+    }
+
+    /**
+     * @param <T>
+     * @param type type of the bean
+     * @param mocked
+     * @return a proxy of the mock with the behavior
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T apply(Class<T> type, T mocked) {
+        Assert.notNull(type, "Type must not be null");
+        Assert.notNull(mocked, "Mock must not be null");
+        final ProxyFactory proxyFactory = new ProxyFactory(mocked);
+        if (type.isInterface()) {
+            proxyFactory.setInterfaces(type);
+        } else {
+            proxyFactory.setProxyTargetClass(true);
+        }
+        proxyFactory.addAdvice(new Interceptor(concurrencyLimit > 0 ? new Semaphore(concurrencyLimit, true) : null));
+        return (T) proxyFactory.getProxy(type.getClassLoader());
+    }
+
+    /**
+     * @return the number of calls through the proxies
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the number of injected failures
+     */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @return the sum of the injected latencies
+     */
+    public Duration getInjectedLatency() {
+        return Duration.ofNanos(latencyNanos.sum());
+    }
+
+    /**
+     * @return the highest number of calls at the same time on a proxy, waiting calls excluded
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency.get();
+    }
+
+    /**
+     * @return the source of the next call, derived from the seed and the call index when seeded
+     */
+    private RandomGenerator nextRandom() {
+        if (seed == null) {
+            return ThreadLocalRandom.current();
+        }
+        final long index = seededCalls.getAndIncrement();
+        return new SplittableRandom(new SplittableRandom(seed + index * GOLDEN_GAMMA).nextLong());
+    }
+
+    /**
+     * Latency distribution, in nanoseconds.
+     */
+    @FunctionalInterface
+    private interface Latency {
+
+        long sample(RandomGenerator random);
+
+    }
+
+    private final class Interceptor implements MethodInterceptor {
+
+        private final Semaphore permits;
+        private final AtomicInteger concurrency = new AtomicInteger();
+
+        private Interceptor(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            calls.increment();
+            if (permits != null) {
+                permits.acquire();
+            }
+            try {
+                maxConcurrency.accumulateAndGet(concurrency.incrementAndGet(), Math::max);
+                final RandomGenerator current = nextRandom();
+                final long nanos = latency.sample(current);
+                if (nanos > 0) {
+                    latencyNanos.add(nanos);
+                    TimeUnit.NANOSECONDS.sleep(nanos);
+                }
+                if (errorRate > 0 && current.nextDouble() < errorRate) {
+                    errors.increment();
+                    throw error.get();
+                }
+                return invocation.proceed();
+            } finally {
+                concurrency.decrementAndGet();
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.util.function.UnaryOperator;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Cache of {@link MockMvc} instances, one per {@link WebApplicationContext}.
+ * <p>An entry is evicted as soon as its context is closed. A {@link MockMvc} holds a strong
+ * reference to its context, so the close event is what releases the context, not a weak key.
+ * <p>Contexts that are not {@link ConfigurableApplicationContext} cannot notify their close and are never cached.
+ * <p>The {@link MockMvc} built here end with the {@link MvcStream#filter() capture filter} of {@link MvcStream},
+ * transparent for other requests, so stream assertions run with the same setup as every other request.
+ * A {@link MockMvc} given to {@link #register(WebApplicationContext, MockMvc)} must add it for {@link MvcStream#of(WebApplicationContext)}.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MockMvcCache {
+
+    private static final ContextCache<WebApplicationContext, MockMvc> CACHE = new ContextCache<>();
+
+    private MockMvcCache() { }
+
+    /**
+     * @param context
+     * @return the cached {@link MockMvc} of the context, built with the default setup if absent
+     */
+    public static MockMvc get(final WebApplicationContext context) {
+        return CACHE.get(context, source -> build(source, null));
+    }
+
+    /**
+     * @param context
+     * @param customizer customize the builder (filters, default request, ...)
+     * @return the registered {@link MockMvc}
+     */
+    public static MockMvc register(final WebApplicationContext context, final UnaryOperator<DefaultMockMvcBuilder> customizer) {
+        Assert.notNull(customizer, "Customizer must not be null");
+        return register(context, build(ContextCache.getSourceContext(context), customizer));
+    }
+
+    /**
+     * @param context
+     * @param mockMvc
+     * @return the registered {@link MockMvc}
+     */
+    public static MockMvc register(final WebApplicationContext context, final MockMvc mockMvc) {
+        return CACHE.put(context, mockMvc);
+    }
+
+    /**
+     * @param context
+     */
+    public static void evict(final WebApplicationContext context) {
+        CACHE.remove(context);
+    }
+
+    /**
+     * Evict every cached {@link MockMvc}.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * @return the number of cached {@link MockMvc}
+     */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    private static MockMvc build(final WebApplicationContext context, final UnaryOperator<DefaultMockMvcBuilder> customizer) {
+        final DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup(context);
+        return (customizer != null ? customizer.apply(builder) : builder).addFilters(MvcStream.filter()).build();
+    }
+
+}
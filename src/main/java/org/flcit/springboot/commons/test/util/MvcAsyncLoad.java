@@ -0,0 +1,289 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Many concurrent async requests ({@code DeferredResult}, {@code Callable}, {@code CompletableFuture}, ...)
+ * through the {@link MockMvcCache cached} {@link MockMvc} of the context.
+ * <p>All the requests are started by the {@link #starters(int) starter} threads without waiting for their results.
+ * Each request is completed by its async dispatch as soon as its result is set, and the completion latency is measured
+ * from the request start to the result. When the {@link #timeout(Duration) timeout} is reached, the async timeout of the
+ * requests still in flight is fired, as a servlet container would, so the timeout handling of the application runs.
+ * <pre>
+ * MvcAsyncLoad.of(context).requests(5_000).timeout(Duration.ofSeconds(2)).expect(status().isOk())
+ *     .run(() -&gt; MockMvcRequestBuilders.get("/api/deferred"))
+ *     .assertNoTimeouts()
+ *     .assertNoErrors();
+ * </pre>
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MvcAsyncLoad {
+
+    private final MockMvc mockMvc;
+    private int requests = 1;
+    private int starters = 1;
+    private Duration timeout = Duration.ofSeconds(10);
+    private ResultMatcher[] expected;
+
+    private MvcAsyncLoad(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    /**
+     * @param context
+     * @return
+     */
+    public static MvcAsyncLoad of(WebApplicationContext context) {
+        return new MvcAsyncLoad(MockMvcCache.get(context));
+    }
+
+    /**
+     * @param mockMvc
+     * @return
+     */
+    public static MvcAsyncLoad of(MockMvc mockMvc) {
+        Assert.notNull(mockMvc, "MockMvc must not be null");
+        return new MvcAsyncLoad(mockMvc);
+    }
+
+    /**
+     * @param requests number of requests
+     * @return this
+     */
+    public MvcAsyncLoad requests(int requests) {
+        Assert.isTrue(requests > 0, "Requests must be positive");
+        this.requests = requests;
+        return this;
+    }
+
+    /**
+     * @param starters number of threads starting the requests, 1 by default
+     * @return this
+     */
+    public MvcAsyncLoad starters(int starters) {
+        Assert.isTrue(starters > 0, "Starters must be positive");
+        this.starters = starters;
+        return this;
+    }
+
+    /**
+     * @param timeout time after which the requests still in flight time out, 10 seconds by default
+     * @return this
+     */
+    public MvcAsyncLoad timeout(Duration timeout) {
+        Assert.isTrue(timeout != null && !timeout.isNegative() && !timeout.isZero(), "Timeout must be positive");
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param expected checked on the result of every completed request
+     * @return this
+     */
+    public MvcAsyncLoad expect(ResultMatcher... expected) {
+        this.expected = expected;
+        return this;
+    }
+
+    /**
+     * @param request called for each request, request builders are not thread-safe
+     * @return
+     */
+    public MvcAsyncLoadResult run(Supplier<? extends RequestBuilder> request) {
+        Assert.notNull(request, "Request must not be null");
+        final Run run = new Run();
+        final long start = System.nanoTime();
+        final long deadline = start + timeout.toNanos();
+        final ExecutorService executor = ParallelPathAssertions.newDaemonPool(starters, "mvc-async-");
+        try {
+            final AtomicInteger remaining = new AtomicInteger(requests);
+            final List<Future<?>> futures = new ArrayList<>(starters);
+            for (int i = 0; i < starters; i++) {
+                futures.add(executor.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        run.start(request.get());
+                    }
+                }));
+            }
+            int processed = 0;
+            boolean timeoutFired = false;
+            while (processed < requests) {
+                final Pending pending = poll(run.completed, timeoutFired ? System.nanoTime() : deadline);
+                if (pending != null) {
+                    processed++;
+                    run.complete(pending);
+                } else if (!timeoutFired) {
+                    await(futures);
+                    run.fireTimeouts();
+                    timeoutFired = true;
+                } else {
+                    break;
+                }
+            }
+            // requests whose timeout did not dispatch
+            run.timeouts += requests - processed;
+            return new MvcAsyncLoadResult(requests, Duration.ofNanos(System.nanoTime() - start), run.histogram,
+                    run.timeouts, run.errors, run.maxInFlight.get(), run.firstFailure);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Pending poll(BlockingQueue<Pending> queue, long deadline) {
+        try {
+            return queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * State of a run: the starters add the requests, the calling thread completes them.
+     */
+    private final class Run {
+
+        private final BlockingQueue<Pending> completed = new LinkedBlockingQueue<>();
+        private final Set<Pending> inFlight = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger inFlightCount = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long timeouts;
+        private long errors;
+        private Throwable firstFailure;
+
+        private void start(RequestBuilder requestBuilder) {
+            final long start = System.nanoTime();
+            final MvcResult mvcResult;
+            try {
+                mvcResult = mockMvc.perform(requestBuilder).andReturn();
+            } catch (Exception e) {
+                completed.add(new Pending(null, start, e));
+                return;
+            }
+            final Pending pending = new Pending(mvcResult, start, null);
+            if (!mvcResult.getRequest().isAsyncStarted()) {
+                pending.end = System.nanoTime();
+                completed.add(pending);
+                return;
+            }
+            inFlight.add(pending);
+            maxInFlight.accumulateAndGet(inFlightCount.incrementAndGet(), Math::max);
+            ((MockAsyncContext) mvcResult.getRequest().getAsyncContext()).addDispatchHandler(() -> {
+                pending.end = System.nanoTime();
+                inFlightCount.decrementAndGet();
+                inFlight.remove(pending);
+                completed.add(pending);
+            });
+        }
+
+        private void fireTimeouts() {
+            for (Pending pending : new ArrayList<>(inFlight)) {
+                pending.timedOut = true;
+                VirtualAsyncClock.fireTimeout((MockAsyncContext) pending.mvcResult.getRequest().getAsyncContext());
+            }
+        }
+
+        private void complete(Pending pending) {
+            if (pending.failure != null) {
+                error(pending.failure);
+                return;
+            }
+            if (pending.timedOut) {
+                timeouts++;
+                return;
+            }
+            histogram.record(pending.end - pending.start);
+            try {
+                final MvcResult result = pending.mvcResult.getRequest().isAsyncStarted()
+                        ? mockMvc.perform(asyncDispatch(pending.mvcResult)).andReturn()
+                        : pending.mvcResult;
+                if (expected != null) {
+                    for (ResultMatcher matcher : expected) {
+                        matcher.match(result);
+                    }
+                }
+            } catch (Exception | AssertionError e) {
+                error(e);
+            }
+        }
+
+        private void error(Throwable t) {
+            errors++;
+            if (firstFailure == null) {
+                firstFailure = t;
+            }
+        }
+
+    }
+
+    private static final class Pending {
+
+        private final MvcResult mvcResult;
+        private final long start;
+        private final Throwable failure;
+        private volatile long end;
+        private volatile boolean timedOut;
+
+        private Pending(MvcResult mvcResult, long start, Throwable failure) {
+            this.mvcResult = mvcResult;
+            this.start = start;
+            this.failure = failure;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Outcome of a {@link MvcAsyncLoad} run.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MvcAsyncLoadResult {
+
+    private final int requestCount;
+    private final Duration elapsed;
+    private final LatencyHistogram histogram;
+    private final long timeoutCount;
+    private final long errorCount;
+    private final int maxInFlight;
+    private final Throwable firstFailure;
+
+    MvcAsyncLoadResult(int requestCount, Duration elapsed, LatencyHistogram histogram, long timeoutCount, long errorCount, int maxInFlight, Throwable firstFailure) {
+        this.requestCount = requestCount;
+        this.elapsed = elapsed;
+        this.histogram = histogram;
+        this.timeoutCount = timeoutCount;
+        this.errorCount = errorCount;
+        this.maxInFlight = maxInFlight;
+        this.firstFailure = firstFailure;
+    }
+
+    /**
+     * @return
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return the number of requests completed before the timeout
+     */
+    public long getCompletedCount() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * @return
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the highest number of async requests started and not completed at the same time
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return the first exception or assertion failure, {@code null} if none
+     */
+    public Throwable getFirstFailure() {
+        return firstFailure;
+    }
+
+    /**
+     * @return
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return the completion latency of the requests completed before the timeout,
+     * from the request start to its async result
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return
+     */
+    public Duration getPercentile(double percentile) {
+        return histogram.getPercentile(percentile);
+    }
+
+    /**
+     * @return this result
+     */
+    public MvcAsyncLoadResult assertNoErrors() {
+        assertEquals(0, errorCount, () -> "Requests failed: " + this + (firstFailure != null ? ", first failure: " + firstFailure : ""));
+        return this;
+    }
+
+    /**
+     * @return this result
+     */
+    public MvcAsyncLoadResult assertNoTimeouts() {
+        return assertTimeoutsAtMost(0);
+    }
+
+    /**
+     * @param maxTimeouts
+     * @return this result
+     */
+    public MvcAsyncLoadResult assertTimeoutsAtMost(long maxTimeouts) {
+        assertTrue(timeoutCount <= maxTimeouts, () -> "More than " + maxTimeouts + " requests timed out: " + this);
+        return this;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @param max
+     * @return this result
+     */
+    public MvcAsyncLoadResult assertPercentileLessThan(double percentile, Duration max) {
+        final Duration actual = getPercentile(percentile);
+        assertTrue(actual.compareTo(max) < 0, () -> "p" + percentile + " " + LatencyHistogram.format(actual) + " is not less than " + LatencyHistogram.format(max) + ": " + this);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "requests=%d, completed=%d, timeouts=%d, errors=%d, maxInFlight=%d, elapsed=%d ms, %s",
+                requestCount, getCompletedCount(), timeoutCount, errorCount, maxInFlight, elapsed.toMillis(), histogram);
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Load on a {@link WebApplicationContext} through the {@link MockMvcCache cached} {@link MockMvc} of the context.
+ * <ul>
+ * <li>closed-loop (default): each worker sends a request as soon as its previous one completed;</li>
+ * <li>open-loop ({@link #rate(double)}): requests are scheduled at a constant arrival rate and the latency
+ * is measured from the scheduled start, so the time spent waiting for a free worker is counted
+ * (coordinated omission correction). The workers bound the number of requests in flight.</li>
+ * </ul>
+ * The request supplier is called for every request because request builders are not thread-safe.
+ * <pre>
+ * MvcLoad.of(context).workers(64).duration(Duration.ofSeconds(5)).expect(status().isOk())
+ *     .run(() -&gt; MvcUtils.getJsonGetRequestBuilder("/api/items"))
+ *     .assertNoErrors()
+ *     .assertPercentileLessThan(99, Duration.ofMillis(20));
+ * </pre>
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MvcLoad {
+
+    private final MockMvc mockMvc;
+    private int workers = 1;
+    private Duration duration;
+    private long iterations;
+    private long warmupIterations;
+    private double rate;
+    private ResultMatcher[] expected;
+
+    private MvcLoad(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    /**
+     * @param context
+     * @return
+     */
+    public static MvcLoad of(WebApplicationContext context) {
+        return new MvcLoad(MockMvcCache.get(context));
+    }
+
+    /**
+     * @param mockMvc
+     * @return
+     */
+    public static MvcLoad of(MockMvc mockMvc) {
+        Assert.notNull(mockMvc, "MockMvc must not be null");
+        return new MvcLoad(mockMvc);
+    }
+
+    /**
+     * @param workers number of concurrent workers
+     * @return this
+     */
+    public MvcLoad workers(int workers) {
+        Assert.isTrue(workers > 0, "Workers must be positive");
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * @param duration measured run duration
+     * @return this
+     */
+    public MvcLoad duration(Duration duration) {
+        Assert.isTrue(duration != null && !duration.isNegative() && !duration.isZero(), "Duration must be positive");
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * @param iterations total number of measured requests, shared by all workers
+     * @return this
+     */
+    public MvcLoad iterations(long iterations) {
+        Assert.isTrue(iterations > 0, "Iterations must be positive");
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * @param warmupIterations number of requests sent before the measure, not recorded
+     * @return this
+     */
+    public MvcLoad warmup(long warmupIterations) {
+        Assert.isTrue(warmupIterations >= 0, "Warmup iterations must not be negative");
+        this.warmupIterations = warmupIterations;
+        return this;
+    }
+
+    /**
+     * Switch to open-loop: requests are scheduled at a constant arrival rate.
+     * @param requestsPerSecond target arrival rate
+     * @return this
+     */
+    public MvcLoad rate(double requestsPerSecond) {
+        Assert.isTrue(requestsPerSecond > 0, "Rate must be positive");
+        this.rate = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param expected matchers applied to every response, a mismatch counts as an error
+     * @return this
+     */
+    public MvcLoad expect(ResultMatcher... expected) {
+        this.expected = expected;
+        return this;
+    }
+
+    /**
+     * Run the load until the duration elapsed or the iterations are consumed, whichever comes first.
+     * The warm-up is always run closed-loop.
+     * @param request
+     * @return
+     */
+    public MvcLoadResult run(Supplier<? extends RequestBuilder> request) {
+        Assert.notNull(request, "Request must not be null");
+        Assert.isTrue(duration != null || iterations > 0, "Duration or iterations must be set");
+        if (warmupIterations > 0) {
+            runWorkers(request, closedLoop(warmupIterations, Long.MAX_VALUE));
+        }
+        final long start = System.nanoTime();
+        final long deadline = duration != null ? start + duration.toNanos() : Long.MAX_VALUE;
+        final long count = iterations > 0 ? iterations : Long.MAX_VALUE;
+        final List<Worker> done = runWorkers(request, rate > 0 ? openLoop(count, start, deadline) : closedLoop(count, deadline));
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LatencyHistogram serviceTimeHistogram = new LatencyHistogram();
+        long errors = 0;
+        long missedSlots = 0;
+        Throwable firstFailure = null;
+        for (Worker worker : done) {
+            histogram.add(worker.histogram);
+            serviceTimeHistogram.add(worker.serviceTimeHistogram);
+            errors += worker.errors;
+            missedSlots += worker.missedSlots;
+            if (firstFailure == null) {
+                firstFailure = worker.firstFailure;
+            }
+        }
+        return new MvcLoadResult(workers, rate, elapsed, histogram, serviceTimeHistogram, errors, missedSlots, firstFailure);
+    }
+
+    private static Schedule closedLoop(long count, long deadline) {
+        final AtomicLong remaining = new AtomicLong(count);
+        return worker -> {
+            final long now = System.nanoTime();
+            return now < deadline && remaining.getAndDecrement() > 0 ? now : Schedule.END;
+        };
+    }
+
+    private Schedule openLoop(long count, long start, long deadline) {
+        final double interval = 1_000_000_000d / rate;
+        final AtomicLong nextSlot = new AtomicLong();
+        return worker -> {
+            final long slot = nextSlot.getAndIncrement();
+            final long scheduled = start + (long) (slot * interval);
+            if (slot >= count || scheduled - deadline >= 0) {
+                return Schedule.END;
+            }
+            long now;
+            while ((now = System.nanoTime()) - scheduled < 0) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+            // the slot could not be honoured on time: every worker was busy with a previous request
+            if (now - scheduled > interval) {
+                worker.missedSlots++;
+            }
+            return scheduled;
+        };
+    }
+
+    private List<Worker> runWorkers(Supplier<? extends RequestBuilder> request, Schedule schedule) {
+        final ExecutorService executor = ParallelPathAssertions.newDaemonPool(workers, "mvc-load-");
+        final CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            final List<Future<Worker>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                final Worker worker = new Worker();
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    long scheduled;
+                    while ((scheduled = schedule.next(worker)) != Schedule.END) {
+                        worker.perform(request.get(), scheduled);
+                    }
+                    return worker;
+                }));
+            }
+            startGate.countDown();
+            final List<Worker> done = new ArrayList<>(workers);
+            for (Future<Worker> future : futures) {
+                done.add(future.get());
+            }
+            return done;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Schedule {
+
+        long END = Long.MIN_VALUE;
+
+        /**
+         * Wait for the next request slot of the worker.
+         * @param worker
+         * @return the scheduled start in nanoseconds or {@link #END}
+         */
+        long next(Worker worker);
+
+    }
+
+    private final class Worker {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LatencyHistogram serviceTimeHistogram = new LatencyHistogram();
+        private long errors;
+        private long missedSlots;
+        private Throwable firstFailure;
+
+        private void perform(RequestBuilder requestBuilder, long scheduled) {
+            final long start = System.nanoTime();
+            final ResultActions result;
+            try {
+                result = mockMvc.perform(requestBuilder);
+            } catch (Exception e) {
+                record(scheduled, start);
+                error(e);
+                return;
+            }
+            record(scheduled, start);
+            if (expected != null) {
+                try {
+                    result.andExpectAll(expected);
+                } catch (Exception | AssertionError e) {
+                    error(e);
+                }
+            }
+        }
+
+        private void record(long scheduled, long start) {
+            final long end = System.nanoTime();
+            histogram.record(end - scheduled);
+            serviceTimeHistogram.record(end - start);
+        }
+
+        private void error(Throwable t) {
+            errors++;
+            if (firstFailure == null) {
+                firstFailure = t;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Outcome of a {@link MvcLoad} run.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MvcLoadResult {
+
+    private final int workers;
+    private final double targetRate;
+    private final Duration elapsed;
+    private final LatencyHistogram histogram;
+    private final LatencyHistogram serviceTimeHistogram;
+    private final long errorCount;
+    private final long missedSlots;
+    private final Throwable firstFailure;
+
+    MvcLoadResult(int workers, double targetRate, Duration elapsed, LatencyHistogram histogram, LatencyHistogram serviceTimeHistogram, long errorCount, long missedSlots, Throwable firstFailure) {
+        this.workers = workers;
+        this.targetRate = targetRate;
+        this.elapsed = elapsed;
+        this.histogram = histogram;
+        this.serviceTimeHistogram = serviceTimeHistogram;
+        this.errorCount = errorCount;
+        this.missedSlots = missedSlots;
+        this.firstFailure = firstFailure;
+    }
+
+    /**
+     * @return
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @return
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return the target arrival rate in requests per second, 0 for a closed-loop run
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * @return the latency of every request, failed ones included.
+     * In open-loop it is measured from the scheduled start (corrected for coordinated omission).
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return the latency of every request measured from its actual send,
+     * same as {@link #getHistogram()} for a closed-loop run
+     */
+    public LatencyHistogram getServiceTimeHistogram() {
+        return serviceTimeHistogram;
+    }
+
+    /**
+     * @return the number of open-loop slots sent more than one arrival interval late
+     */
+    public long getMissedSlots() {
+        return missedSlots;
+    }
+
+    /**
+     * @return
+     */
+    public long getRequestCount() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * @return
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the first exception or assertion failure, {@code null} if none
+     */
+    public Throwable getFirstFailure() {
+        return firstFailure;
+    }
+
+    /**
+     * @return the number of requests per second
+     */
+    public double getThroughput() {
+        final long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : getRequestCount() * 1_000_000_000d / nanos;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return
+     */
+    public Duration getPercentile(double percentile) {
+        return histogram.getPercentile(percentile);
+    }
+
+    /**
+     * @return
+     */
+    public Duration getP50() {
+        return getPercentile(50);
+    }
+
+    /**
+     * @return
+     */
+    public Duration getP90() {
+        return getPercentile(90);
+    }
+
+    /**
+     * @return
+     */
+    public Duration getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * @return
+     */
+    public Duration getMax() {
+        return histogram.getMax();
+    }
+
+    /**
+     * @return this result
+     */
+    public MvcLoadResult assertNoErrors() {
+        assertEquals(0, errorCount, () -> "Requests failed: " + this + (firstFailure != null ? ", first failure: " + firstFailure : ""));
+        return this;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @param max
+     * @return this result
+     */
+    public MvcLoadResult assertPercentileLessThan(double percentile, Duration max) {
+        final Duration actual = getPercentile(percentile);
+        assertTrue(actual.compareTo(max) < 0, () -> "p" + percentile + " " + LatencyHistogram.format(actual) + " is not less than " + LatencyHistogram.format(max) + ": " + this);
+        return this;
+    }
+
+    /**
+     * @param minThroughput in requests per second
+     * @return this result
+     */
+    public MvcLoadResult assertThroughputAtLeast(double minThroughput) {
+        assertTrue(getThroughput() >= minThroughput, () -> "Throughput is less than " + minThroughput + " req/s: " + this);
+        return this;
+    }
+
+    /**
+     * @param maxMissedSlots
+     * @return this result
+     */
+    public MvcLoadResult assertMissedSlotsAtMost(long maxMissedSlots) {
+        assertTrue(missedSlots <= maxMissedSlots, () -> "More than " + maxMissedSlots + " missed slots: " + this);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        if (targetRate > 0) {
+            return String.format(Locale.ROOT, "workers=%d, rate=%.1f req/s, missedSlots=%d, elapsed=%d ms, throughput=%.1f req/s, errors=%d, %s, service time: %s",
+                    workers, targetRate, missedSlots, elapsed.toMillis(), getThroughput(), errorCount, histogram, serviceTimeHistogram);
+        }
+        return String.format(Locale.ROOT, "workers=%d, elapsed=%d ms, throughput=%.1f req/s, errors=%d, %s",
+                workers, elapsed.toMillis(), getThroughput(), errorCount, histogram);
+    }
+
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import org.opentest4j.AssertionFailedError;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.AbstractMockHttpServletRequestBuilder;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.GenericFilterBean;
+
+/**
+ * Incremental consumption of a streamed response ({@code StreamingResponseBody}, {@code ResponseBodyEmitter}, {@code SseEmitter}).
+ * <p>The response output is captured while the endpoint writes it: every flush is a chunk, and for
+ * server-sent events every complete event, delivered to the consumer on the calling thread as soon as it is written.
+ * The time to the first event and the gaps between events are recorded in the {@link MvcStreamResult}.
+ * <pre>
+ * MvcStream.of(context).timeout(Duration.ofSeconds(5))
+ *     .events(MockMvcRequestBuilders.get("/events"), event -&gt; assertEquals("tick", event.getName()))
+ *     .assertTimeToFirstEventLessThan(Duration.ofMillis(100))
+ *     .assertMaxGapLessThan(Duration.ofSeconds(1));
+ * </pre>
+ * The output is captured by the {@link #filter() capture filter}: {@link #of(WebApplicationContext)} uses the
+ * {@link MockMvcCache} one, which has the filter, a {@link MockMvc} given to {@link #of(MockMvc)} must have it.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MvcStream {
+
+    private static final String CAPTURE_ATTRIBUTE = MvcStream.class.getName() + ".CAPTURE";
+    private static final Object END = new Object();
+
+    private final MockMvc mockMvc;
+    private Duration timeout = Duration.ofSeconds(10);
+
+    private MvcStream(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    /**
+     * @param context
+     * @return
+     */
+    public static MvcStream of(WebApplicationContext context) {
+        return new MvcStream(MockMvcCache.get(context));
+    }
+
+    /**
+     * @param mockMvc built with the {@link #filter() capture filter}
+     * @return
+     */
+    public static MvcStream of(MockMvc mockMvc) {
+        Assert.notNull(mockMvc, "MockMvc must not be null");
+        return new MvcStream(mockMvc);
+    }
+
+    /**
+     * @return a filter capturing the output of the streams started by {@link MvcStream}, transparent for other requests
+     */
+    public static Filter filter() {
+        return new CaptureFilter();
+    }
+
+    /**
+     * @param timeout maximum time for the whole stream, 10 seconds by default
+     * @return this
+     */
+    public MvcStream timeout(Duration timeout) {
+        Assert.isTrue(timeout != null && !timeout.isNegative() && !timeout.isZero(), "Timeout must be positive");
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param requestBuilder
+     * @param eachChunk called with the bytes of every flush
+     * @return
+     */
+    public MvcStreamResult chunks(AbstractMockHttpServletRequestBuilder<?> requestBuilder, Consumer<byte[]> eachChunk) {
+        Assert.notNull(eachChunk, "Consumer must not be null");
+        return perform(requestBuilder, chunk -> {
+            eachChunk.accept(chunk);
+            return 1;
+        });
+    }
+
+    /**
+     * @param requestBuilder
+     * @param eachEvent called with every server-sent event
+     * @return
+     */
+    public MvcStreamResult events(AbstractMockHttpServletRequestBuilder<?> requestBuilder, Consumer<SseEvent> eachEvent) {
+        Assert.notNull(eachEvent, "Consumer must not be null");
+        final SseParser parser = new SseParser();
+        return perform(requestBuilder, chunk -> parser.parse(chunk, eachEvent));
+    }
+
+    private MvcStreamResult perform(AbstractMockHttpServletRequestBuilder<?> requestBuilder, ToIntFunction<byte[]> consumer) {
+        final Capture capture = new Capture();
+        requestBuilder.requestAttr(CAPTURE_ATTRIBUTE, capture);
+        final long start = System.nanoTime();
+        final long deadline = start + timeout.toNanos();
+        final ResultActions resultActions = perform(requestBuilder);
+        final MvcResult mvcResult = resultActions.andReturn();
+        final boolean async = mvcResult.getRequest().isAsyncStarted();
+        if (async) {
+            ((MockAsyncContext) mvcResult.getRequest().getAsyncContext()).addDispatchHandler(capture::complete);
+        } else {
+            capture.complete();
+        }
+        final List<Long> timestamps = new ArrayList<>();
+        Object item;
+        while ((item = poll(capture.queue, deadline)) != END) {
+            if (item == null) {
+                throw new AssertionFailedError("Stream not completed within " + LatencyHistogram.format(timeout) + " after " + timestamps.size() + " events");
+            }
+            final Chunk chunk = (Chunk) item;
+            for (int i = consumer.applyAsInt(chunk.bytes); i > 0; i--) {
+                timestamps.add(chunk.nanos - start);
+            }
+        }
+        return new MvcStreamResult(async ? perform(asyncDispatch(mvcResult)) : resultActions, timestamps, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private ResultActions perform(RequestBuilder requestBuilder) {
+        try {
+            return mockMvc.perform(requestBuilder);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object poll(BlockingQueue<Object> queue, long deadline) {
+        try {
+            return queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Server-sent event.
+     */
+    public static final class SseEvent {
+
+        private final String id;
+        private final String name;
+        private final String data;
+
+        private SseEvent(String id, String name, String data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+
+        /**
+         * @return the last event id, {@code null} if none
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the event name, {@code null} for the default {@code message} event
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the data lines joined with line feeds
+         */
+        public String getData() {
+            return data;
+        }
+
+        @Override
+        public String toString() {
+            return "SseEvent [id=" + id + ", name=" + name + ", data=" + data + "]";
+        }
+
+    }
+
+    /**
+     * Line-based parser of the text/event-stream format, fed chunk by chunk.
+     */
+    private static final class SseParser {
+
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private StringBuilder data;
+        private String name;
+        private String id;
+
+        /**
+         * @return the number of events completed by the chunk
+         */
+        private int parse(byte[] chunk, Consumer<SseEvent> eachEvent) {
+            int events = 0;
+            for (byte b : chunk) {
+                if (b != '\n') {
+                    line.write(b);
+                } else if (parseLine(eachEvent)) {
+                    events++;
+                }
+            }
+            return events;
+        }
+
+        private boolean parseLine(Consumer<SseEvent> eachEvent) {
+            String value = line.toString(StandardCharsets.UTF_8);
+            line.reset();
+            if (value.endsWith("\r")) {
+                value = value.substring(0, value.length() - 1);
+            }
+            if (value.isEmpty()) {
+                if (data == null) {
+                    return false;
+                }
+                final SseEvent event = new SseEvent(id, name, data.toString());
+                data = null;
+                name = null;
+                eachEvent.accept(event);
+                return true;
+            }
+            if (value.charAt(0) == ':') {
+                return false;
+            }
+            final int colon = value.indexOf(':');
+            final String field = colon < 0 ? value : value.substring(0, colon);
+            String fieldValue = colon < 0 ? "" : value.substring(colon + 1);
+            if (fieldValue.startsWith(" ")) {
+                fieldValue = fieldValue.substring(1);
+            }
+            switch (field) {
+                case "data":
+                    data = data == null ? new StringBuilder(fieldValue) : data.append('\n').append(fieldValue);
+                    break;
+                case "event":
+                    name = fieldValue;
+                    break;
+                case "id":
+                    id = fieldValue;
+                    break;
+                default:
+                    break;
+            }
+            return false;
+        }
+
+    }
+
+    private static final class Chunk {
+
+        private final byte[] bytes;
+        private final long nanos;
+
+        private Chunk(byte[] bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+    }
+
+    /**
+     * Output of one request: the bytes written since the last flush are queued as a chunk on every flush.
+     */
+    private static final class Capture {
+
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private boolean completed;
+
+        private synchronized void write(byte[] b, int off, int len) {
+            if (!completed) {
+                pending.write(b, off, len);
+            }
+        }
+
+        private synchronized void flush() {
+            if (pending.size() > 0) {
+                queue.add(new Chunk(pending.toByteArray(), System.nanoTime()));
+                pending.reset();
+            }
+        }
+
+        private synchronized void complete() {
+            if (!completed) {
+                flush();
+                completed = true;
+                queue.add(END);
+            }
+        }
+
+    }
+
+    private static final class CaptureFilter extends GenericFilterBean {
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            final Object capture = request.getAttribute(CAPTURE_ATTRIBUTE);
+            if (capture instanceof Capture c && response instanceof HttpServletResponse httpResponse) {
+                chain.doFilter(request, new CaptureResponse(httpResponse, c));
+            } else {
+                chain.doFilter(request, response);
+            }
+        }
+
+    }
+
+    private static final class CaptureResponse extends HttpServletResponseWrapper {
+
+        private final Capture capture;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private CaptureResponse(HttpServletResponse response, Capture capture) {
+            super(response);
+            this.capture = capture;
+        }
+
+        @Override
+        public synchronized ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CaptureOutputStream(super.getOutputStream(), capture);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public synchronized PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())), true);
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+            capture.flush();
+        }
+
+    }
+
+    private static final class CaptureOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final Capture capture;
+
+        private CaptureOutputStream(ServletOutputStream delegate, Capture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture.write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+            capture.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+    }
+
+}
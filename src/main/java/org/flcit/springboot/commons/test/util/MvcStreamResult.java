@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Outcome of a {@link MvcStream} request: event timings and final result.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class MvcStreamResult {
+
+    private final ResultActions resultActions;
+    private final long[] timestamps;
+    private final Duration elapsed;
+
+    MvcStreamResult(ResultActions resultActions, List<Long> timestamps, Duration elapsed) {
+        this.resultActions = resultActions;
+        this.timestamps = timestamps.stream().mapToLong(Long::longValue).toArray();
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return the result of the completed request, after the async dispatch
+     */
+    public ResultActions getResultActions() {
+        return resultActions;
+    }
+
+    /**
+     * @return the number of events, or chunks
+     */
+    public int getEventCount() {
+        return timestamps.length;
+    }
+
+    /**
+     * @return the time from the request start to the first event, {@code null} if none
+     */
+    public Duration getTimeToFirstEvent() {
+        return timestamps.length > 0 ? Duration.ofNanos(timestamps[0]) : null;
+    }
+
+    /**
+     * @return the time between each event and the previous one
+     */
+    public List<Duration> getGaps() {
+        if (timestamps.length < 2) {
+            return Collections.emptyList();
+        }
+        final List<Duration> gaps = new ArrayList<>(timestamps.length - 1);
+        for (int i = 1; i < timestamps.length; i++) {
+            gaps.add(Duration.ofNanos(timestamps[i] - timestamps[i - 1]));
+        }
+        return gaps;
+    }
+
+    /**
+     * @return the longest gap between two events, zero with less than two events
+     */
+    public Duration getMaxGap() {
+        long max = 0;
+        for (int i = 1; i < timestamps.length; i++) {
+            max = Math.max(max, timestamps[i] - timestamps[i - 1]);
+        }
+        return Duration.ofNanos(max);
+    }
+
+    /**
+     * @return the time from the request start to the stream completion
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @param matchers
+     * @return this result
+     */
+    public MvcStreamResult andExpect(ResultMatcher... matchers) {
+        try {
+            resultActions.andExpectAll(matchers);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return this;
+    }
+
+    /**
+     * @param expected
+     * @return this result
+     */
+    public MvcStreamResult assertEventCount(int expected) {
+        assertEquals(expected, timestamps.length, () -> "Unexpected event count: " + this);
+        return this;
+    }
+
+    /**
+     * @param max
+     * @return this result
+     */
+    public MvcStreamResult assertTimeToFirstEventLessThan(Duration max) {
+        final Duration actual = getTimeToFirstEvent();
+        assertTrue(actual != null && actual.compareTo(max) < 0, () -> "Time to first event is not less than " + LatencyHistogram.format(max) + ": " + this);
+        return this;
+    }
+
+    /**
+     * @param max
+     * @return this result
+     */
+    public MvcStreamResult assertMaxGapLessThan(Duration max) {
+        assertTrue(getMaxGap().compareTo(max) < 0, () -> "Max gap between events is not less than " + LatencyHistogram.format(max) + ": " + this);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final Duration first = getTimeToFirstEvent();
+        return "events=" + timestamps.length
+                + ", firstEvent=" + (first != null ? LatencyHistogram.format(first) : "none")
+                + ", maxGap=" + LatencyHistogram.format(getMaxGap())
+                + ", elapsed=" + LatencyHistogram.format(elapsed);
+    }
+
+}
@@ -18,34 +18,36 @@ package org.flcit.springboot.commons.test.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Part;
 
 import org.junit.jupiter.api.function.Executable;
 import org.springframework.boot.test.context.assertj.AssertableWebApplicationContext;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.converter.FormHttpMessageConverter;
-import org.springframework.mock.http.MockHttpOutputMessage;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.mock.web.MockMultipartHttpServletRequest;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.FilterChainProxy;
@@ -58,18 +60,20 @@ import org.springframework.test.web.servlet.request.AbstractMockHttpServletReque
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
-import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.context.WebApplicationContext;
-import org.springframework.web.multipart.MultipartFile;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import org.flcit.commons.core.util.IterableUtils;
-import org.flcit.springboot.commons.test.multipart.PartResource;
+import org.flcit.springboot.commons.test.multipart.MultipartBody;
+import org.flcit.springboot.commons.test.multipart.MultipartRequestBuilder;
 import org.flcit.springboot.commons.test.security.SecurityTestUtils;
 
 /**
@@ -89,12 +93,43 @@ public final class MvcUtils {
         assertAsyncResponsesTimeout(context, HttpMethod.GET, paths);
     }
 
+    /**
+     * Same as {@link #assertGetAsyncResponsesTimeout(AssertableWebApplicationContext, String...)}
+     * but the paths are run concurrently and every failure is reported at once.
+     * @param context
+     * @param paths
+     */
+    public static void assertGetAsyncResponsesTimeoutParallel(AssertableWebApplicationContext context, String... paths) {
+        ParallelPathAssertions.assertAll(HttpMethod.GET.name(), paths, (path, sink) -> assertAsyncResponseTimeout(context, HttpMethod.GET, path));
+    }
+
+    /**
+     * Assert that each request does not complete within the {@link VirtualAsyncClock#settle(java.time.Duration) settle time}
+     * of a {@link VirtualAsyncClock} (100 ms by default) and is then completed by its async timeout, fired in virtual time.
+     * Unlike {@link #assertGetAsyncResponsesTimeout(AssertableWebApplicationContext, String...)}, which waits for the real
+     * timeout, work completing between the settle time and the real timeout is reported as timed out.
+     * @param context
+     * @param paths
+     */
+    public static void assertGetAsyncResponsesVirtualTimeout(AssertableWebApplicationContext context, String... paths) {
+        final VirtualAsyncClock clock = VirtualAsyncClock.of(context);
+        for (String path : paths) {
+            final MvcResult result = clock.start(MockMvcRequestBuilders.get(path));
+            clock.advanceToTimeout(result);
+            assertTrue(clock.isTimedOut(result), path);
+        }
+    }
+
     private static void assertAsyncResponsesTimeout(AssertableWebApplicationContext context, HttpMethod method, String... paths) {
         for (String path : paths) {
-            assertThrows(IllegalStateException.class, () -> assertAsyncResponse(context, MockMvcRequestBuilders.request(method, path)).getAsyncResult());
+            assertAsyncResponseTimeout(context, method, path);
         }
     }
 
+    private static void assertAsyncResponseTimeout(AssertableWebApplicationContext context, HttpMethod method, String path) {
+        assertThrows(IllegalStateException.class, () -> assertAsyncResponse(context, MockMvcRequestBuilders.request(method, path)).getAsyncResult());
+    }
+
     /**
      * @param context
      * @param expectedResponse
@@ -106,6 +141,17 @@ public final class MvcUtils {
         }
     }
 
+    /**
+     * Same as {@link #assertGetJsonAsyncResponses(AssertableWebApplicationContext, Object, String...)}
+     * but the paths are run concurrently and every failure is reported at once.
+     * @param context
+     * @param expectedResponse
+     * @param paths
+     */
+    public static void assertGetJsonAsyncResponsesParallel(AssertableWebApplicationContext context, Object expectedResponse, String... paths) {
+        ParallelPathAssertions.assertAll(HttpMethod.GET.name(), paths, (path, sink) -> assertGetJsonResponse(context, path, null, expectedResponse, JsonCompareEngine.JSON_ASSERT, true, true, captureStatus(sink), status().isOk()));
+    }
+
     /**
      * @param context
      * @param path
@@ -116,6 +162,20 @@ public final class MvcUtils {
         return assertGetJsonResponse(context, path, expectedResponse, true);
     }
 
+    /**
+     * Consume the server-sent events of the path as they are sent.
+     * @param context
+     * @param path
+     * @param eachEvent
+     * @return the event timings
+     * @see MvcStream
+     */
+    public static MvcStreamResult assertGetEventStream(AssertableWebApplicationContext context, String path, Consumer<MvcStream.SseEvent> eachEvent) {
+        return MvcStream.of(context)
+                .events(MockMvcRequestBuilders.get(path).accept(MediaType.TEXT_EVENT_STREAM), eachEvent)
+                .andExpect(status().isOk());
+    }
+
     /**
      * @param context
      * @param path
@@ -135,8 +195,47 @@ public final class MvcUtils {
         return assertGetJsonResponse(context, path, expectedResponse, false);
     }
 
+    /**
+     * Assert the response then its latency budget.
+     * @param context
+     * @param path
+     * @param budget
+     * @return
+     */
+    public static ResultActions assertGetJsonResponseWithin(AssertableWebApplicationContext context, String path, LatencyBudget budget) {
+        return assertGetJsonResponseWithin(context, path, null, budget);
+    }
+
+    /**
+     * Assert the response then its latency budget.
+     * @param context
+     * @param path
+     * @param expectedResponse
+     * @param budget
+     * @return
+     */
+    public static ResultActions assertGetJsonResponseWithin(AssertableWebApplicationContext context, String path, Object expectedResponse, LatencyBudget budget) {
+        final ResultActions result = assertGetJsonResponse(context, path, expectedResponse);
+        budget.assertWithin(getMockMvc(context), () -> getJsonGetRequestBuilder(path), result.andReturn().getResponse().getStatus());
+        return result;
+    }
+
+    /**
+     * Assert the response then its allocation budget.
+     * @param context
+     * @param path
+     * @param expectedResponse
+     * @param budget
+     * @return
+     */
+    public static ResultActions assertGetJsonResponseWithin(AssertableWebApplicationContext context, String path, Object expectedResponse, AllocationBudget budget) {
+        final ResultActions result = assertGetJsonResponse(context, path, expectedResponse);
+        budget.assertWithin(getMockMvc(context), () -> getJsonGetRequestBuilder(path));
+        return result;
+    }
+
     private static ResultActions assertGetJsonResponse(AssertableWebApplicationContext context, String path, Object expectedResponse, boolean async) {
-        return assertGetJsonResponse(context, path, null, expectedResponse, true, async, status().isOk());
+        return assertGetJsonResponse(context, path, null, expectedResponse, JsonCompareEngine.JSON_ASSERT, true, async, status().isOk());
     }
 
     /**
@@ -147,7 +246,7 @@ public final class MvcUtils {
      * @return
      */
     public static ResultActions assertGetJsonResponse(AssertableWebApplicationContext context, String path, HttpStatus expectedStatus, Object expectedResponse) {
-        return assertGetJsonResponse(context, path, null, expectedResponse, true, false, status().is(expectedStatus.value()));
+        return assertGetJsonResponse(context, path, null, expectedResponse, JsonCompareEngine.JSON_ASSERT, true, false, status().is(expectedStatus.value()));
     }
 
     /**
@@ -159,13 +258,38 @@ public final class MvcUtils {
      * @return
      */
     public static ResultActions assertGetJsonResponse(AssertableWebApplicationContext context, String path, HttpStatus expectedStatus, Object expectedResponse, boolean strict) {
-        return assertGetJsonResponse(context, path, null, expectedResponse, strict, false, status().is(expectedStatus.value()));
+        return assertGetJsonResponse(context, path, expectedStatus, expectedResponse, strict, JsonCompareEngine.JSON_ASSERT);
     }
 
-    private static ResultActions assertGetJsonResponse(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object expectedResponse, boolean strict, boolean async, ResultMatcher... expected) {
+    /**
+     * @param context
+     * @param path
+     * @param expectedStatus
+     * @param expectedResponse
+     * @param strict
+     * @param engine engine of the JSON comparison
+     * @return
+     */
+    public static ResultActions assertGetJsonResponse(AssertableWebApplicationContext context, String path, HttpStatus expectedStatus, Object expectedResponse, boolean strict, JsonCompareEngine engine) {
+        return assertGetJsonResponse(context, path, null, expectedResponse, engine, strict, false, status().is(expectedStatus.value()));
+    }
+
+    /**
+     * Assert the response against a golden file, see {@link JsonSnapshot}.
+     * @param context
+     * @param path
+     * @param snapshot
+     * @return
+     */
+    public static ResultActions assertGetJsonSnapshot(AssertableWebApplicationContext context, String path, Path snapshot) {
+        return assertGetResponseIntern(context, path, null, new MediaType[] { MediaType.APPLICATION_JSON }, false,
+                status().isOk(), content().contentType(MediaType.APPLICATION_JSON), JsonSnapshot.of(snapshot));
+    }
+
+    private static ResultActions assertGetJsonResponse(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object expectedResponse, JsonCompareEngine engine, boolean strict, boolean async, ResultMatcher... expected) {
         expected = ObjectUtils.addObjectToArray(expected, content().contentType(MediaType.APPLICATION_JSON));
         if (expectedResponse != null) {
-            expected = ObjectUtils.addObjectToArray(expected, content().json(writeValueAsString(context, expectedResponse), JsonTestUtils.getMode(strict)));
+            expected = ObjectUtils.addObjectToArray(expected, content().json(writeValueAsString(context, expectedResponse), JsonTestUtils.getComparator(engine, strict)));
         }
         return assertGetResponseIntern(context, path, uriVariables, new MediaType[] { MediaType.APPLICATION_JSON }, async, expected);
     }
@@ -189,6 +313,25 @@ public final class MvcUtils {
         }
     }
 
+    /**
+     * @param context
+     * @param paths
+     */
+    public static void assertGetResponseStatusParallel(AssertableWebApplicationContext context, String... paths) {
+        assertGetResponseStatusParallel(context, HttpStatus.OK, paths);
+    }
+
+    /**
+     * Same as {@link #assertGetResponseStatus(AssertableWebApplicationContext, HttpStatus, String...)}
+     * but the paths are run concurrently against the shared {@link MockMvc} and every failure is reported at once.
+     * @param context
+     * @param expectedStatus
+     * @param paths
+     */
+    public static void assertGetResponseStatusParallel(AssertableWebApplicationContext context, HttpStatus expectedStatus, String... paths) {
+        ParallelPathAssertions.assertAll(HttpMethod.GET.name(), paths, (path, sink) -> assertGetResponseIntern(context, path, null, null, false, captureStatus(sink), status().is(expectedStatus.value())));
+    }
+
     /**
      * @param context
      * @param path
@@ -249,14 +392,72 @@ public final class MvcUtils {
      * @return
      */
     public static ResultActions assertPostJsonResponse(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object body, Object expectedResponse, boolean strict, boolean mockMultipart) {
+        return assertPostJsonResponse(context, path, uriVariables, body, expectedResponse, JsonCompareEngine.JSON_ASSERT, strict, mockMultipart);
+    }
+
+    /**
+     * @param context
+     * @param path
+     * @param uriVariables
+     * @param body
+     * @param expectedResponse
+     * @param strict
+     * @param engine engine of the JSON comparison
+     * @return
+     */
+    public static ResultActions assertPostJsonResponse(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object body, Object expectedResponse, boolean strict, JsonCompareEngine engine) {
+        return assertPostJsonResponse(context, path, uriVariables, body, expectedResponse, engine, strict, false);
+    }
+
+    private static ResultActions assertPostJsonResponse(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object body, Object expectedResponse, JsonCompareEngine engine, boolean strict, boolean mockMultipart) {
         ResultMatcher[] expected = new ResultMatcher[] { status().isOk() };
         if (expectedResponse != null) {
             expected = ObjectUtils.addObjectToArray(expected, content().contentType(MediaType.APPLICATION_JSON));
-            expected = ObjectUtils.addObjectToArray(expected, content().json(writeValueAsString(context, expectedResponse), JsonTestUtils.getMode(strict)));
+            expected = ObjectUtils.addObjectToArray(expected, content().json(writeValueAsString(context, expectedResponse), JsonTestUtils.getComparator(engine, strict)));
         }
         return assertResponse(context, getMockMvcRequestBuilders(context, path, uriVariables, body, mockMultipart), new MediaType[] { MediaType.APPLICATION_JSON }, false, expected);
     }
 
+    /**
+     * Assert the response then its latency budget.
+     * @param context
+     * @param path
+     * @param uriVariables
+     * @param body
+     * @param expectedResponse
+     * @param strict
+     * @param budget
+     * @return
+     */
+    public static ResultActions assertPostJsonResponseWithin(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object body, Object expectedResponse, boolean strict, LatencyBudget budget) {
+        final ResultActions result = assertPostJsonResponse(context, path, uriVariables, body, expectedResponse, strict);
+        budget.assertWithin(getMockMvc(context), () -> getJsonPostRequestBuilder(context, path, uriVariables, body), result.andReturn().getResponse().getStatus());
+        return result;
+    }
+
+    /**
+     * Assert the response then its allocation budget.
+     * The JSON serialization of the body is reported apart from the request building.
+     * @param context
+     * @param path
+     * @param uriVariables
+     * @param body
+     * @param expectedResponse
+     * @param strict
+     * @param budget
+     * @return
+     */
+    public static ResultActions assertPostJsonResponseWithin(AssertableWebApplicationContext context, String path, Object[] uriVariables, Object body, Object expectedResponse, boolean strict, AllocationBudget budget) {
+        final ResultActions result = assertPostJsonResponse(context, path, uriVariables, body, expectedResponse, strict);
+        if (body == null || isMultipart(body)) {
+            budget.assertWithin(getMockMvc(context), () -> getJsonPostRequestBuilder(context, path, uriVariables, body));
+        } else {
+            budget.assertWithin(getMockMvc(context), () -> writeValueAsBytes(context, body),
+                    content -> getPostMockHttpServletRequestBuilder(path, uriVariables, MediaType.APPLICATION_JSON, content).accept(MediaType.APPLICATION_JSON));
+        }
+        return result;
+    }
+
     /**
      * @param context
      * @param path
@@ -324,6 +525,26 @@ public final class MvcUtils {
         return assertResponse(context, getMockMvcRequestBuilders(context, path, uriVariables, body), null, false, status().is(expectedStatus.value()));
     }
 
+    /**
+     * @param path
+     * @param uriVariables
+     * @return the GET request sent by {@link #assertGetJsonResponse(AssertableWebApplicationContext, String)}
+     */
+    public static MockHttpServletRequestBuilder getJsonGetRequestBuilder(String path, Object... uriVariables) {
+        return MockMvcRequestBuilders.get(path, uriVariables).accept(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * @param context
+     * @param path
+     * @param uriVariables
+     * @param body JSON body or multipart files
+     * @return the POST request sent by {@link #assertPostJsonResponse(AssertableWebApplicationContext, String, Object[], Object)}
+     */
+    public static AbstractMockHttpServletRequestBuilder<?> getJsonPostRequestBuilder(WebApplicationContext context, String path, Object[] uriVariables, Object body) {
+        return getMockMvcRequestBuilders(context, path, uriVariables, body).accept(MediaType.APPLICATION_JSON);
+    }
+
     private static AbstractMockHttpServletRequestBuilder<?> getMockMvcRequestBuilders(WebApplicationContext context, String path, Object[] uriVariables, Object body) {
         return getMockMvcRequestBuilders(context, path, uriVariables, body, false);
     }
@@ -339,51 +560,35 @@ public final class MvcUtils {
         return requestBuilder;
     }
 
-    @SuppressWarnings("unchecked")
     private static AbstractMockHttpServletRequestBuilder<?> getMockMvcRequestBuildersMultipart(String path, Object[] uriVariables, Object body, boolean mockMultipart) {
-        final MockMultipartHttpServletRequestBuilder multipartRequestBuilder = uriVariables != null ? MockMvcRequestBuilders.multipart(path, uriVariables) : MockMvcRequestBuilders.multipart(path);
-        if (body instanceof MockMultipartFile mockMultipartFile) {
-            multipartRequestBuilder.file(mockMultipartFile);
-        } else {
-            final Iterable<MockMultipartFile> it = body.getClass().isArray() ? Arrays.asList((MockMultipartFile[]) body) : (Iterable<MockMultipartFile>) body;
-            for (MockMultipartFile file : it) {
-                multipartRequestBuilder.file(file);
+        final Iterable<?> it = getMultipartElements(body);
+        if (mockMultipart) {
+            final MockMultipartHttpServletRequestBuilder multipartRequestBuilder = uriVariables != null ? MockMvcRequestBuilders.multipart(path, uriVariables) : MockMvcRequestBuilders.multipart(path);
+            for (Object element : it) {
+                if (element instanceof MockMultipartFile file) {
+                    multipartRequestBuilder.file(file);
+                } else {
+                    multipartRequestBuilder.part((Part) element);
+                }
             }
+            return multipartRequestBuilder;
         }
-        return mockMultipart ? multipartRequestBuilder : getMockHttpServletRequestBuilderMultipartFormData(multipartRequestBuilder, path, uriVariables);
-    }
-
-    private static MockHttpServletRequestBuilder getMockHttpServletRequestBuilderMultipartFormData(MockMultipartHttpServletRequestBuilder builder, String path, Object[] uriVariables) {
-        final FormHttpMessageConverter converter = new FormHttpMessageConverter();
-        final MockMultipartHttpServletRequest request = (MockMultipartHttpServletRequest) builder.buildRequest(new MockServletContext());
-        final MultiValueMap<String, HttpEntity<Resource>> parts = new LinkedMultiValueMap<>();
-        for (Entry<String, List<MultipartFile>> files : request.getMultiFileMap().entrySet()) {
-            for (MultipartFile file : files.getValue()) {
-                parts.add(files.getKey(), getPart(file));
+        final MultipartBody multipartBody = new MultipartBody();
+        for (Object element : it) {
+            if (element instanceof MockMultipartFile file) {
+                multipartBody.add(file);
+            } else {
+                multipartBody.add((Part) element);
             }
         }
-        final MockHttpOutputMessage httpOutputMessage = new MockHttpOutputMessage();
-        try {
-            for (Part part : request.getParts()) {
-                parts.add(part.getName(), getPart(part));
-            }
-            converter.write(parts, MediaType.MULTIPART_FORM_DATA, httpOutputMessage);
-        } catch (IOException | ServletException e) {
-            throw new IllegalStateException(e);
-        }
-        return getPostMockHttpServletRequestBuilder(path, uriVariables, httpOutputMessage.getHeaders().getContentType(), httpOutputMessage.getBodyAsBytes());
-    }
-
-    private static HttpEntity<Resource> getPart(MultipartFile file) {
-        final HttpHeaders headers = new HttpHeaders();
-        headers.set(HttpHeaders.CONTENT_TYPE, file.getContentType());
-        return new HttpEntity<>(file.getResource(), headers);
+        return new MultipartRequestBuilder(HttpMethod.POST, multipartBody, path, uriVariables != null ? uriVariables : new Object[0]);
     }
 
-    private static HttpEntity<Resource> getPart(Part part) {
-        final HttpHeaders headers = new HttpHeaders();
-        headers.set(HttpHeaders.CONTENT_TYPE, part.getContentType());
-        return new HttpEntity<>(new PartResource(part), headers);
+    private static Iterable<?> getMultipartElements(Object body) {
+        if (isMultipartElement(body.getClass())) {
+            return Collections.singletonList(body);
+        }
+        return body.getClass().isArray() ? Arrays.asList((Object[]) body) : (Iterable<?>) body;
     }
 
     private static MockHttpServletRequestBuilder getPostMockHttpServletRequestBuilder(String path, Object[] uriVariables, MediaType contentType, byte[] content) {
@@ -401,11 +606,11 @@ public final class MvcUtils {
         if (body == null) {
             return false;
         }
-        if (body instanceof MockMultipartFile) {
+        if (isMultipartElement(body.getClass())) {
             return true;
         }
         if (body.getClass().isArray()) {
-            return !ObjectUtils.isEmpty((Object[]) body) && MockMultipartFile.class.isAssignableFrom(body.getClass().getComponentType());
+            return isMultipartElement(body.getClass().getComponentType()) && !ObjectUtils.isEmpty((Object[]) body);
         }
         if (Iterable.class.isAssignableFrom(body.getClass())) {
             return !CollectionUtils.isEmpty((List<?>) body) && isMultipart(IterableUtils.getFirst((Iterable<?>) body));
@@ -413,6 +618,10 @@ public final class MvcUtils {
         return false;
     }
 
+    private static boolean isMultipartElement(Class<?> type) {
+        return MockMultipartFile.class.isAssignableFrom(type) || Part.class.isAssignableFrom(type);
+    }
+
     private static ResultActions assertResponse(WebApplicationContext context, AbstractMockHttpServletRequestBuilder<?> requestBuilder, MediaType[] mediaTypes, boolean async, ResultMatcher... expected) {
         final MockMvc mockMvc = getMockMvc(context);
         if (mediaTypes != null) {
@@ -447,6 +656,10 @@ public final class MvcUtils {
         }
     }
 
+    private static ResultMatcher captureStatus(IntConsumer status) {
+        return result -> status.accept(result.getResponse().getStatus());
+    }
+
     private static HttpStatus assertGetResponseStatus(AssertableWebApplicationContext context, String path, User user) {
         final FilterChainProxy filterChainProxy = context.getBean(FilterChainProxy.class);
         final MockHttpServletResponse response = new MockHttpServletResponse();
@@ -491,6 +704,29 @@ public final class MvcUtils {
         }
     }
 
+    /**
+     * @param context
+     * @param paths
+     */
+    public static void assertGetResponseStatusNoMvcParallel(AssertableWebApplicationContext context, String... paths) {
+        assertGetResponseStatusNoMvcParallel(context, HttpStatus.OK, paths);
+    }
+
+    /**
+     * Same as {@link #assertGetResponseStatusNoMvc(AssertableWebApplicationContext, HttpStatus, String...)}
+     * but the paths are run concurrently and every failure is reported at once.
+     * @param context
+     * @param expectedStatus
+     * @param paths
+     */
+    public static void assertGetResponseStatusNoMvcParallel(AssertableWebApplicationContext context, HttpStatus expectedStatus, String... paths) {
+        ParallelPathAssertions.assertAll(HttpMethod.GET.name(), paths, (path, sink) -> {
+            final HttpStatus actual = assertGetResponseStatusNoMvc(context, path);
+            sink.accept(actual.value());
+            assertEquals(expectedStatus, actual, path);
+        });
+    }
+
     /**
      * @param context
      * @param roles
@@ -511,8 +747,97 @@ public final class MvcUtils {
      * @return
      */
     public static <T> T convert(final WebApplicationContext context, final ResultActions result, Class<T> responseType) {
+        return read(JsonCodecCache.getReader(context, responseType), result);
+    }
+
+    /**
+     * @param <T>
+     * @param context
+     * @param result
+     * @param responseType
+     * @return
+     */
+    public static <T> T convert(final WebApplicationContext context, final ResultActions result, TypeReference<T> responseType) {
+        return read(JsonCodecCache.getReader(context, responseType), result);
+    }
+
+    /**
+     * Convert a JSON array response element by element: the elements are bound lazily while the stream is consumed,
+     * so only the raw response content is kept in memory and not the whole object graph.
+     * @param <T>
+     * @param context
+     * @param result
+     * @param elementType
+     * @return
+     */
+    public static <T> Stream<T> convertStream(final WebApplicationContext context, final ResultActions result, Class<T> elementType) {
+        return stream(convertIterator(context, result, elementType));
+    }
+
+    /**
+     * @param <T>
+     * @param context
+     * @param result
+     * @param elementType
+     * @return
+     * @see #convertStream(WebApplicationContext, ResultActions, Class)
+     */
+    public static <T> Stream<T> convertStream(final WebApplicationContext context, final ResultActions result, TypeReference<T> elementType) {
+        return stream(convertIterator(context, result, elementType));
+    }
+
+    /**
+     * @param <T>
+     * @param context
+     * @param result
+     * @param elementType
+     * @return an iterator binding the array elements one by one
+     * @see #convertStream(WebApplicationContext, ResultActions, Class)
+     */
+    public static <T> MappingIterator<T> convertIterator(final WebApplicationContext context, final ResultActions result, Class<T> elementType) {
+        return readValues(JsonCodecCache.getReader(context, elementType), result);
+    }
+
+    /**
+     * @param <T>
+     * @param context
+     * @param result
+     * @param elementType
+     * @return an iterator binding the array elements one by one
+     * @see #convertStream(WebApplicationContext, ResultActions, Class)
+     */
+    public static <T> MappingIterator<T> convertIterator(final WebApplicationContext context, final ResultActions result, TypeReference<T> elementType) {
+        return readValues(JsonCodecCache.getReader(context, elementType), result);
+    }
+
+    private static <T> MappingIterator<T> readValues(final ObjectReader reader, final ResultActions result) {
+        try {
+            final JsonParser parser = reader.createParser(result.andReturn().getResponse().getContentAsByteArray());
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new IllegalStateException("Response is not a JSON array");
+            }
+            parser.clearCurrentToken();
+            return reader.readValues(parser);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> Stream<T> stream(final MappingIterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        iterator.close();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+    }
+
+    private static <T> T read(final ObjectReader reader, final ResultActions result) {
         try {
-            return getObjectMapper(context).readValue(result.andReturn().getResponse().getContentAsByteArray(), responseType);
+            return reader.readValue(result.andReturn().getResponse().getContentAsByteArray());
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -520,7 +845,7 @@ public final class MvcUtils {
 
     private static String writeValueAsString(final WebApplicationContext context, final Object body) {
         try {
-            return getObjectMapper(context).writeValueAsString(body);
+            return getObjectWriter(context, body).writeValueAsString(body);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -528,18 +853,18 @@ public final class MvcUtils {
 
     private static byte[] writeValueAsBytes(final WebApplicationContext context, final Object body) {
         try {
-            return getObjectMapper(context).writeValueAsBytes(body);
+            return getObjectWriter(context, body).writeValueAsBytes(body);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private static ObjectMapper getObjectMapper(final WebApplicationContext context) {
-        return context.getBean(ObjectMapper.class);
+    private static ObjectWriter getObjectWriter(final WebApplicationContext context, final Object body) {
+        return JsonCodecCache.getWriter(context, body.getClass());
     }
 
     private static MockMvc getMockMvc(WebApplicationContext context) {
-        return MockMvcBuilders.webAppContextSetup(context).build();
+        return MockMvcCache.get(context);
     }
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.opentest4j.MultipleFailuresError;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Run one assertion per path on a bounded pool and report every failure at once.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+final class ParallelPathAssertions {
+
+    private static final int NO_STATUS = -1;
+    // handlers often wait on (mocked) dependencies, so the pool is larger than the number of cores
+    private static final int DEFAULT_PARALLELISM = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
+    private ParallelPathAssertions() { }
+
+    /**
+     * @param method
+     * @param paths
+     * @param assertion
+     */
+    static void assertAll(final String method, final String[] paths, final PathAssertion assertion) {
+        assertAll(method, paths, DEFAULT_PARALLELISM, assertion);
+    }
+
+    /**
+     * @param method
+     * @param paths
+     * @param parallelism
+     * @param assertion
+     */
+    static void assertAll(final String method, final String[] paths, final int parallelism, final PathAssertion assertion) {
+        if (ObjectUtils.isEmpty(paths)) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final ExecutorService executor = newDaemonPool(Math.max(1, Math.min(parallelism, paths.length)), "mvc-path-");
+        final List<PathResult> results;
+        try {
+            final List<Future<PathResult>> futures = new ArrayList<>(paths.length);
+            for (String path : paths) {
+                futures.add(executor.submit(() -> check(path, assertion)));
+            }
+            results = new ArrayList<>(paths.length);
+            for (Future<PathResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        report(method, results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static PathResult check(final String path, final PathAssertion assertion) {
+        final PathResult result = new PathResult(path);
+        final long start = System.nanoTime();
+        try {
+            assertion.check(path, status -> result.status = status);
+        } catch (Throwable t) {
+            result.failure = t;
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static void report(final String method, final List<PathResult> results, final long totalMillis) {
+        final List<Throwable> failures = new ArrayList<>();
+        for (PathResult result : results) {
+            if (result.failure != null) {
+                failures.add(result.failure);
+            }
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+        final StringBuilder heading = new StringBuilder();
+        heading.append(failures.size()).append(" of ").append(results.size()).append(' ')
+            .append(method).append(" paths failed in ").append(totalMillis).append(" ms");
+        for (PathResult result : results) {
+            heading.append(System.lineSeparator()).append('\t')
+                .append(result.failure != null ? "[FAILED] " : "[OK] ")
+                .append(result.path).append(" -> ")
+                .append(result.status != NO_STATUS ? String.valueOf(result.status) : "?")
+                .append(" in ").append(TimeUnit.NANOSECONDS.toMillis(result.nanos)).append(" ms");
+        }
+        throw new MultipleFailuresError(heading.toString(), failures);
+    }
+
+    /**
+     * @param threads
+     * @param prefix
+     * @return a fixed pool of daemon threads
+     */
+    static ExecutorService newDaemonPool(final int threads, final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Assertion on a single path, reporting the response status when one is available.
+     */
+    @FunctionalInterface
+    interface PathAssertion {
+
+        /**
+         * @param path
+         * @param status
+         * @throws Throwable
+         */
+        @SuppressWarnings("java:S112")
+        void check(String path, IntConsumer status) throws Throwable;
+
+    }
+
+    private static final class PathResult {
+
+        private final String path;
+        private volatile int status = NO_STATUS;
+        private long nanos;
+        private Throwable failure;
+
+        private PathResult(String path) {
+            this.path = path;
+        }
+
+    }
+
+}
@@ -16,20 +16,8 @@
 
 package org.flcit.springboot.commons.test.util;
 
-import static org.hamcrest.Matchers.empty;
-import static org.hamcrest.Matchers.emptyOrNullString;
-import static org.hamcrest.Matchers.hasToString;
-import static org.hamcrest.Matchers.not;
-import static org.hamcrest.Matchers.hasSize;
-import static org.hamcrest.Matchers.lessThanOrEqualTo;
-import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.allOf;
-import static org.hamcrest.Matchers.matchesRegex;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-
 import java.util.regex.Pattern;
 
-import org.hamcrest.Matcher;
 import org.springframework.test.web.servlet.ResultActions;
 
 import org.flcit.commons.core.util.StringUtils;
@@ -49,9 +37,8 @@ public final class ResultActionsUtils {
      * @return
      * @throws Exception
      */
-    @SuppressWarnings("unchecked")
     public static ResultActions assertEmptyOrNull(final ResultActions result, final String... fields) throws Exception {
-        return assertAllOf(result, new Matcher[] { emptyOrNullString() } , fields);
+        return JsonPathAssertions.of(result).emptyOrNull(fields).assertAll();
     }
 
     /**
@@ -62,7 +49,7 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertNotEmptyOrNullAndNotEqual(final ResultActions result, final String notExpectedValue, final String... fields) throws Exception {
-        return assertNotEmptyOrNullAndNotEqualIntern(result, emptyOrNullString(), hasToString(notExpectedValue), fields);
+        return JsonPathAssertions.of(result).notEmptyOrNullAndNotEqual(notExpectedValue, fields).assertAll();
     }
 
     /**
@@ -73,7 +60,7 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertNotEmptyOrNullAndNotEqual(final ResultActions result, final Object notExpectedValue, final String... fields) throws Exception {
-        return assertNotEmptyOrNullAndNotEqualIntern(result, notExpectedValue instanceof CharSequence ? emptyOrNullString() : empty(), equalTo(notExpectedValue), fields);
+        return JsonPathAssertions.of(result).notEmptyOrNullAndNotEqual(notExpectedValue, fields).assertAll();
     }
 
     /**
@@ -84,7 +71,7 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertNotEmptyOrNullAndMatchRegex(final ResultActions result, final String regex, final String... fields) throws Exception {
-        return assertNotEmptyOrNullAndMatchRegex(result, matchesRegex(regex), fields);
+        return JsonPathAssertions.of(result).notEmptyOrNullAndMatchRegex(regex, fields).assertAll();
     }
 
     /**
@@ -95,24 +82,7 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertNotEmptyOrNullAndMatchRegex(final ResultActions result, final Pattern regex, final String... fields) throws Exception {
-        return assertNotEmptyOrNullAndMatchRegex(result, matchesRegex(regex), fields);
-    }
-
-    @SuppressWarnings("unchecked")
-    private static ResultActions assertNotEmptyOrNullAndMatchRegex(final ResultActions result, final Matcher<?> matchesRegex, final String... fields) throws Exception {
-        return assertAllOf(result, new Matcher[] { not(emptyOrNullString()), matchesRegex }, fields);
-    }
-
-    @SuppressWarnings("unchecked")
-    private static ResultActions assertNotEmptyOrNullAndNotEqualIntern(final ResultActions result, final Matcher<?> emptyMatcher, final Matcher<?> equalMatcher, final String... fields) throws Exception {
-        return assertAllOf(result, new Matcher[] { not(emptyMatcher), not(equalMatcher) }, fields);
-    }
-
-    private static <T> ResultActions assertAllOf(final ResultActions result, final Matcher<? super T>[] matchers, final String... fields) throws Exception {
-        for (String field : fields) {
-            result.andExpect(jsonPath(getExpression(field), allOf(matchers)));
-        }
-        return result;
+        return JsonPathAssertions.of(result).notEmptyOrNullAndMatchRegex(regex, fields).assertAll();
     }
 
     /**
@@ -122,10 +92,7 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertArrayNotEmpty(final ResultActions result, final String... fields) throws Exception {
-        for (String field : fields) {
-            result.andExpect(jsonPath(getExpression(field), not(empty())));
-        }
-        return result;
+        return JsonPathAssertions.of(result).arrayNotEmpty(fields).assertAll();
     }
 
     /**
@@ -136,7 +103,7 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertArrayHasSize(final ResultActions result, final String field, final int size) throws Exception {
-        return result.andExpect(jsonPath(getExpression(field), hasSize(size)));
+        return JsonPathAssertions.of(result).arrayHasSize(field, size).assertAll();
     }
 
     /**
@@ -147,10 +114,13 @@ public final class ResultActionsUtils {
      * @throws Exception
      */
     public static ResultActions assertArrayHasSizeLessOrEqual(final ResultActions result, final String field, final int maxSize) throws Exception {
-        return result.andExpect(jsonPath(getExpression(field), hasSize(lessThanOrEqualTo(maxSize))));
+        return JsonPathAssertions.of(result).arrayHasSizeLessOrEqual(field, maxSize).assertAll();
     }
 
-    private static String getExpression(final String field) {
+    static String getExpression(final String field) {
+        if ("$".equals(field) || field.startsWith("$[")) {
+            return field;
+        }
         return StringUtils.prefixIfMissing("$.", field);
     }
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import org.springframework.boot.LazyInitializationBeanFactoryPostProcessor;
+import org.springframework.boot.test.context.runner.AbstractApplicationContextRunner;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Startup mode of the contexts of a runner, compared with {@link ContextRunnerUtils#compareStartupModes(org.springframework.boot.test.context.runner.WebApplicationContextRunner, org.springframework.boot.test.context.runner.ContextConsumer)}.
+ * <p>AOT-processed initializers are generated at build time ({@code process-test-aot} goal of the Spring Boot Maven plugin)
+ * and used with {@code -Dspring.aot.enabled=true} by {@code @SpringBootTest} classes only:
+ * the beans of a runner are registered at runtime and cannot be processed ahead of time.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public enum StartupMode {
+
+    /**
+     * Every singleton created at startup, the default.
+     */
+    EAGER {
+        @Override
+        public <T extends AbstractApplicationContextRunner<T, ?, ?>> T apply(T contextRunner) {
+            return contextRunner;
+        }
+    },
+
+    /**
+     * Beans created on first use, as with {@code spring.main.lazy-initialization=true}
+     * which only applies to a {@code SpringApplication}.
+     */
+    LAZY {
+        @Override
+        public <T extends AbstractApplicationContextRunner<T, ?, ?>> T apply(T contextRunner) {
+            return contextRunner.withInitializer(LAZY_INITIALIZATION);
+        }
+    };
+
+    // one instance, so the runners stay equal for the ContextRunnerCache
+    private static final ApplicationContextInitializer<ConfigurableApplicationContext> LAZY_INITIALIZATION =
+            context -> context.addBeanFactoryPostProcessor(new LazyInitializationBeanFactoryPostProcessor());
+
+    /**
+     * @param initializer
+     * @return {@code true} if the initializer is the stateless one of a mode, comparable for the {@link ContextRunnerCache}
+     */
+    static boolean isInitializer(Object initializer) {
+        return initializer == LAZY_INITIALIZATION;
+    }
+
+    /**
+     * @param <T>
+     * @param contextRunner
+     * @return the runner in this mode
+     */
+    public abstract <T extends AbstractApplicationContextRunner<T, ?, ?>> T apply(T contextRunner);
+
+}
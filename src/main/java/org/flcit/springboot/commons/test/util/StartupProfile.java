@@ -0,0 +1,312 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.util.Assert;
+
+/**
+ * Startup steps of a context recorded by a {@link BufferingApplicationStartup}: bean instantiations,
+ * post-processors, auto-configurations and the other steps of the refresh, sorted by their own time
+ * (the time of their nested steps excluded).
+ * <p>The {@link #getAutoConfigurations() auto-configurations} are also reported with the time of their class and of
+ * the beans of their {@code @Bean} methods summed. A buffer filled up to its capacity drops the last steps, the
+ * refresh included: such a profile is {@link #isTruncated() truncated} and fails {@link #assertTotalLessThan(Duration)}.
+ * <p>Profiling is enabled with {@link ContextRunnerUtils#withStartupProfiling(org.springframework.boot.test.context.runner.AbstractApplicationContextRunner)}
+ * for a context runner, {@link org.flcit.springboot.commons.test.SpringBootStartupProfilingTest} for a test class.
+ * <pre>
+ * ContextRunnerUtils.withStartupProfiling(runner).run(context -&gt; StartupProfile.of(context).assertTotalLessThan(Duration.ofMillis(500)));
+ * </pre>
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class StartupProfile {
+
+    private static final String INSTANTIATE_STEP = "spring.beans.instantiate";
+    private static final String AUTO_CONFIGURATION = "auto-configuration";
+    private static final int DEFAULT_REPORT_LIMIT = 20;
+
+    private final Duration total;
+    private final List<Step> steps;
+    private final List<Step> autoConfigurations;
+    private final boolean truncated;
+
+    private StartupProfile(Duration total, List<Step> steps, List<Step> autoConfigurations, boolean truncated) {
+        this.total = total;
+        this.steps = steps;
+        this.autoConfigurations = autoConfigurations;
+        this.truncated = truncated;
+    }
+
+    /**
+     * @param context a context started with a {@link StartupProfilingInitializer}
+     * @return the profile of the steps recorded so far
+     */
+    public static StartupProfile of(ApplicationContext context) {
+        final ApplicationContext source = ContextCache.getSourceContext(context);
+        Assert.isInstanceOf(ConfigurableApplicationContext.class, source, "Context must be configurable");
+        if (!(((ConfigurableApplicationContext) source).getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            throw new IllegalStateException("Startup profiling is not enabled for this context");
+        }
+        return of(startup.getBufferedTimeline().getEvents(), getFactoryBeanNames((ConfigurableApplicationContext) source));
+    }
+
+    /**
+     * @return the factory bean name by bean name, empty once the context is closed
+     */
+    private static Map<String, String> getFactoryBeanNames(ConfigurableApplicationContext context) {
+        final Map<String, String> factoryBeanNames = new HashMap<>();
+        if (!context.isActive()) {
+            return factoryBeanNames;
+        }
+        final ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            final String factoryBeanName = beanFactory.getBeanDefinition(beanName).getFactoryBeanName();
+            if (factoryBeanName != null) {
+                factoryBeanNames.put(beanName, factoryBeanName);
+            }
+        }
+        return factoryBeanNames;
+    }
+
+    private static StartupProfile of(List<StartupTimeline.TimelineEvent> events, Map<String, String> factoryBeanNames) {
+        final Map<Long, Duration> nested = new HashMap<>();
+        Duration total = Duration.ZERO;
+        for (StartupTimeline.TimelineEvent event : events) {
+            final Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null) {
+                nested.merge(parentId, event.getDuration(), Duration::plus);
+            } else {
+                total = total.plus(event.getDuration());
+            }
+        }
+        final List<Step> steps = new ArrayList<>(events.size());
+        final Map<Long, String> autoConfigurationById = new HashMap<>();
+        final Map<String, Duration[]> autoConfigurationTimes = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            final Duration self = event.getDuration().minus(nested.getOrDefault(event.getStartupStep().getId(), Duration.ZERO));
+            final Step step = new Step(event.getStartupStep(), self.isNegative() ? Duration.ZERO : self, event.getDuration());
+            steps.add(step);
+            final String autoConfiguration = getAutoConfiguration(step, factoryBeanNames);
+            if (autoConfiguration != null) {
+                autoConfigurationById.put(event.getStartupStep().getId(), autoConfiguration);
+            }
+        }
+        for (int i = 0; i < events.size(); i++) {
+            final StartupStep startupStep = events.get(i).getStartupStep();
+            final String autoConfiguration = autoConfigurationById.get(startupStep.getId());
+            if (autoConfiguration != null) {
+                final Duration[] times = autoConfigurationTimes.computeIfAbsent(autoConfiguration, key -> new Duration[] { Duration.ZERO, Duration.ZERO });
+                times[0] = times[0].plus(steps.get(i).self);
+                // a step nested in a step of the same auto-configuration is already in the total of its parent
+                if (!autoConfiguration.equals(autoConfigurationById.get(startupStep.getParentId()))) {
+                    times[1] = times[1].plus(steps.get(i).total);
+                }
+            }
+        }
+        final List<Step> autoConfigurations = new ArrayList<>(autoConfigurationTimes.size());
+        autoConfigurationTimes.forEach((name, times) -> autoConfigurations.add(new Step(AUTO_CONFIGURATION, name, times[0], times[1])));
+        steps.sort(Comparator.comparing(Step::getSelf).reversed());
+        autoConfigurations.sort(Comparator.comparing(Step::getSelf).reversed());
+        return new StartupProfile(total, Collections.unmodifiableList(steps), Collections.unmodifiableList(autoConfigurations),
+                events.size() >= StartupProfilingInitializer.CAPACITY);
+    }
+
+    /**
+     * @return the auto-configuration of the class or {@code @Bean} method instantiated by the step, {@code null} if none
+     */
+    private static String getAutoConfiguration(Step step, Map<String, String> factoryBeanNames) {
+        if (AUTO_CONFIGURATION.equals(step.type)) {
+            return step.name;
+        }
+        if (!"bean".equals(step.type)) {
+            return null;
+        }
+        final String factoryBeanName = factoryBeanNames.get(step.name);
+        return factoryBeanName != null && isAutoConfiguration(factoryBeanName) ? factoryBeanName : null;
+    }
+
+    private static boolean isAutoConfiguration(String beanName) {
+        return beanName.contains("AutoConfiguration");
+    }
+
+    /**
+     * @return the time of the top-level steps, mainly the context refresh
+     */
+    public Duration getTotal() {
+        return total;
+    }
+
+    /**
+     * @return every step, slowest first
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return every auto-configuration, the time of its class and of its beans summed, slowest first
+     */
+    public List<Step> getAutoConfigurations() {
+        return autoConfigurations;
+    }
+
+    /**
+     * @return {@code true} if the buffer of the steps was full, the last steps being dropped
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @param limit
+     * @return the slowest steps
+     */
+    public List<Step> getSlowest(int limit) {
+        return steps.subList(0, Math.min(limit, steps.size()));
+    }
+
+    /**
+     * @param budget
+     * @return this profile
+     */
+    public StartupProfile assertTotalLessThan(Duration budget) {
+        assertFalse(truncated, () -> "Startup profile truncated to " + StartupProfilingInitializer.CAPACITY + " steps, its total is not reliable");
+        assertTrue(total.compareTo(budget) < 0, () -> "Startup " + LatencyHistogram.format(total) + " is not less than " + LatencyHistogram.format(budget) + System.lineSeparator() + report(DEFAULT_REPORT_LIMIT));
+        return this;
+    }
+
+    /**
+     * @param limit number of steps
+     * @return the slowest steps and auto-configurations as tables
+     */
+    public String report(int limit) {
+        final StringBuilder sb = new StringBuilder("Startup ").append(LatencyHistogram.format(total));
+        if (truncated) {
+            sb.append(" (truncated to ").append(StartupProfilingInitializer.CAPACITY).append(" steps)");
+        }
+        sb.append(", ").append(Math.min(limit, steps.size())).append(" slowest of ").append(steps.size()).append(" steps:");
+        appendTable(sb, steps, limit);
+        sb.append(System.lineSeparator()).append(Math.min(limit, autoConfigurations.size())).append(" slowest of ")
+                .append(autoConfigurations.size()).append(" auto-configurations, with their beans:");
+        appendTable(sb, autoConfigurations, limit);
+        return sb.toString();
+    }
+
+    private static void appendTable(StringBuilder sb, List<Step> steps, int limit) {
+        sb.append(System.lineSeparator()).append(String.format(Locale.ROOT, "%14s %14s  %-36s %s", "self", "total", "type", "name"));
+        for (Step step : steps.subList(0, Math.min(limit, steps.size()))) {
+            sb.append(System.lineSeparator()).append(String.format(Locale.ROOT, "%14s %14s  %-36s %s",
+                    LatencyHistogram.format(step.self), LatencyHistogram.format(step.total), step.type, step.name));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return report(DEFAULT_REPORT_LIMIT);
+    }
+
+    /**
+     * Startup step.
+     */
+    public static final class Step {
+
+        private final String type;
+        private final String name;
+        private final Duration self;
+        private final Duration total;
+
+        private Step(StartupStep step, Duration self, Duration total) {
+            final Map<String, String> tags = new HashMap<>();
+            final StringJoiner joiner = new StringJoiner(", ");
+            for (StartupStep.Tag tag : step.getTags()) {
+                tags.put(tag.getKey(), tag.getValue());
+                joiner.add(tag.getKey() + "=" + tag.getValue());
+            }
+            if (INSTANTIATE_STEP.equals(step.getName()) && tags.containsKey("beanName")) {
+                this.name = tags.get("beanName");
+                this.type = isAutoConfiguration(name) ? AUTO_CONFIGURATION : "bean";
+            } else if (tags.containsKey("postProcessor")) {
+                this.name = tags.get("postProcessor");
+                this.type = "post-processor";
+            } else {
+                this.name = joiner.toString();
+                this.type = step.getName();
+            }
+            this.self = self;
+            this.total = total;
+        }
+
+        private Step(String type, String name, Duration self, Duration total) {
+            this.type = type;
+            this.name = name;
+            this.self = self;
+            this.total = total;
+        }
+
+        /**
+         * @return {@code bean}, {@code auto-configuration}, {@code post-processor} or the step name
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the bean or post-processor name, the tags of the other steps
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the time of the step, its nested steps excluded,
+         * the time of its class and of its beans for an {@link StartupProfile#getAutoConfigurations() auto-configuration}
+         */
+        public Duration getSelf() {
+            return self;
+        }
+
+        /**
+         * @return
+         */
+        public Duration getTotal() {
+            return total;
+        }
+
+    }
+
+}
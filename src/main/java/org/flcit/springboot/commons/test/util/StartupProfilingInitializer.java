@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Attach a {@link BufferingApplicationStartup} to the context before its refresh, read with {@link StartupProfile#of(org.springframework.context.ApplicationContext)}.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class StartupProfilingInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    /**
+     * Maximum number of recorded steps, the next ones are dropped.
+     */
+    static final int CAPACITY = 20_000;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        applicationContext.setApplicationStartup(new BufferingApplicationStartup(CAPACITY));
+    }
+
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.test.json.JsonComparator;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.json.JsonComparison;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Structural {@link JsonComparator} for large documents, with the same rules as the JSONAssert
+ * comparison of {@link JsonCompareMode}:
+ * <ul>
+ * <li>{@link JsonCompareMode#STRICT STRICT}: no extra field, arrays in order;</li>
+ * <li>{@link JsonCompareMode#LENIENT LENIENT}: extra fields allowed, arrays in any order but of the same size.</li>
+ * </ul>
+ * Both documents are read with the Jackson streaming parser into a compact tree where every subtree is hashed.
+ * Unordered arrays are matched in linear time by subtree hash. The objects left without an equal counterpart
+ * (for example with extra fields in {@link JsonCompareMode#LENIENT LENIENT} mode) are matched by the hash of their
+ * scalar fields: an actual object is only compared with the expected ones whose scalar fields it has with the same
+ * values. Only the elements without any scalar field to match on are compared with every other one.
+ * The comparison stops after {@link #maxDifferences(int) a number of differences}, each reported with its JSON pointer.
+ * <pre>
+ * result.andExpect(content().json(expected, StructuralJsonComparator.of(JsonCompareMode.LENIENT).maxDifferences(5)));
+ * </pre>
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class StructuralJsonComparator implements JsonComparator {
+
+    private static final int DEFAULT_MAX_DIFFERENCES = 20;
+    private static final int MAX_DESCRIPTION_LENGTH = 80;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final boolean strict;
+    private final int maxDifferences;
+
+    private StructuralJsonComparator(boolean strict, int maxDifferences) {
+        this.strict = strict;
+        this.maxDifferences = maxDifferences;
+    }
+
+    /**
+     * @param mode
+     * @return a comparator reporting at most 20 differences
+     */
+    public static StructuralJsonComparator of(JsonCompareMode mode) {
+        Assert.notNull(mode, "Mode must not be null");
+        return new StructuralJsonComparator(mode == JsonCompareMode.STRICT, DEFAULT_MAX_DIFFERENCES);
+    }
+
+    /**
+     * @param maxDifferences number of differences after which the comparison stops
+     * @return a copy with the limit
+     */
+    public StructuralJsonComparator maxDifferences(int maxDifferences) {
+        Assert.isTrue(maxDifferences > 0, "Max differences must be positive");
+        return new StructuralJsonComparator(strict, maxDifferences);
+    }
+
+    @Override
+    public JsonComparison compare(String expectedJson, String actualJson) {
+        if (expectedJson == null || actualJson == null) {
+            return expectedJson == actualJson ? JsonComparison.match()
+                    : JsonComparison.mismatch("Expected " + (expectedJson == null ? "null" : "JSON") + " but was " + (actualJson == null ? "null" : "JSON"));
+        }
+        final Comparison comparison = new Comparison(maxDifferences);
+        comparison.compare(parse(expectedJson), parse(actualJson));
+        return comparison.differences.isEmpty() ? JsonComparison.match() : JsonComparison.mismatch(comparison.toString());
+    }
+
+    private Node parse(String json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            final JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IllegalStateException("Empty JSON document");
+            }
+            return read(parser, token);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Node read(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                final Map<String, Node> fields = new LinkedHashMap<>();
+                long objectHash = Kind.OBJECT.ordinal();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String name = parser.currentName();
+                    final Node child = read(parser, parser.nextToken());
+                    fields.put(name, child);
+                    objectHash += mix(hashString(name) * 31 + child.hash);
+                }
+                return new Node(Kind.OBJECT, fields, mix(objectHash));
+            case START_ARRAY:
+                final List<Node> elements = new ArrayList<>();
+                long arrayHash = Kind.ARRAY.ordinal();
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    final Node child = read(parser, next);
+                    elements.add(child);
+                    arrayHash = strict ? arrayHash * 31 + child.hash : arrayHash + mix(child.hash);
+                }
+                return new Node(Kind.ARRAY, elements.toArray(new Node[0]), mix(arrayHash));
+            case VALUE_STRING:
+                final String text = parser.getText();
+                return new Node(Kind.STRING, text, hashString(text));
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                final BigDecimal number = parser.getDecimalValue();
+                return new Node(Kind.NUMBER, number, hashNumber(number));
+            default:
+                return new Node(token == JsonToken.VALUE_NULL ? Kind.NULL : Kind.BOOLEAN,
+                        token == JsonToken.VALUE_NULL ? null : token == JsonToken.VALUE_TRUE, hashScalar(token));
+        }
+    }
+
+    /**
+     * Hash of a document independent of its formatting, of the order of the object fields and of the notation
+     * of the numbers ({@code 1}, {@code 1.0} and {@code 1e0} are equal) but dependent on the order of the arrays:
+     * two documents with the same hash match in {@link JsonCompareMode#STRICT STRICT}, and so in
+     * {@link JsonCompareMode#LENIENT LENIENT}, mode barring a 64-bit collision. No tree is built.
+     * @param parser positioned before the document
+     * @return
+     * @throws IOException
+     */
+    static long canonicalHash(JsonParser parser) throws IOException {
+        final JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new IllegalStateException("Empty JSON document");
+        }
+        return canonicalHash(parser, token);
+    }
+
+    private static long canonicalHash(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                long objectHash = Kind.OBJECT.ordinal();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final long name = hashString(parser.currentName());
+                    objectHash += mix(name * 31 + canonicalHash(parser, parser.nextToken()));
+                }
+                return mix(objectHash);
+            case START_ARRAY:
+                long arrayHash = Kind.ARRAY.ordinal();
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    arrayHash = arrayHash * 31 + canonicalHash(parser, next);
+                }
+                return mix(arrayHash);
+            case VALUE_STRING:
+                return hashString(parser.getText());
+            case VALUE_NUMBER_INT:
+                if (parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                    long unscaled = parser.getLongValue();
+                    int scale = 0;
+                    while (unscaled != 0 && unscaled % 10 == 0) {
+                        unscaled /= 10;
+                        scale--;
+                    }
+                    return hashNumber(unscaled, scale);
+                }
+                return hashNumber(parser.getDecimalValue());
+            case VALUE_NUMBER_FLOAT:
+                return hashNumber(parser.getDecimalValue());
+            default:
+                return hashScalar(token);
+        }
+    }
+
+    private static long hashString(String text) {
+        long hash = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash + Kind.STRING.ordinal());
+    }
+
+    private static long hashNumber(BigDecimal number) {
+        final BigDecimal stripped = number.stripTrailingZeros();
+        return stripped.unscaledValue().bitLength() < Long.SIZE
+                ? hashNumber(stripped.unscaledValue().longValue(), stripped.scale())
+                : mix(stripped.hashCode());
+    }
+
+    private static long hashNumber(long unscaled, int scale) {
+        return mix(mix(unscaled) * 31 + scale + Kind.NUMBER.ordinal());
+    }
+
+    private static long hashScalar(JsonToken token) {
+        return mix(token.ordinal() + Kind.BOOLEAN.ordinal() * 31L);
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private enum Kind { OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL }
+
+    private static final class Node {
+
+        private final Kind kind;
+        private final Object value;
+        private final long hash;
+
+        private Node(Kind kind, Object value, long hash) {
+            this.kind = kind;
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Node> fields() {
+            return (Map<String, Node>) value;
+        }
+
+        private Node[] elements() {
+            return (Node[]) value;
+        }
+
+        private boolean sameValue(Node other) {
+            if (kind == Kind.NUMBER) {
+                return ((BigDecimal) value).compareTo((BigDecimal) other.value) == 0;
+            }
+            return kind == Kind.NULL || value.equals(other.value);
+        }
+
+        private void describe(StringBuilder sb) {
+            if (sb.length() > MAX_DESCRIPTION_LENGTH) {
+                return;
+            }
+            switch (kind) {
+                case OBJECT:
+                    sb.append('{');
+                    String separator = "";
+                    for (Map.Entry<String, Node> field : fields().entrySet()) {
+                        sb.append(separator).append('"').append(field.getKey()).append("\":");
+                        field.getValue().describe(sb);
+                        separator = ",";
+                        if (sb.length() > MAX_DESCRIPTION_LENGTH) {
+                            return;
+                        }
+                    }
+                    sb.append('}');
+                    break;
+                case ARRAY:
+                    sb.append('[');
+                    for (int i = 0; i < elements().length && sb.length() <= MAX_DESCRIPTION_LENGTH; i++) {
+                        if (i > 0) {
+                            sb.append(',');
+                        }
+                        elements()[i].describe(sb);
+                    }
+                    sb.append(']');
+                    break;
+                case STRING:
+                    sb.append('"').append(value).append('"');
+                    break;
+                case NUMBER:
+                    sb.append(((BigDecimal) value).toPlainString());
+                    break;
+                default:
+                    sb.append(value);
+                    break;
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            describe(sb);
+            return sb.length() > MAX_DESCRIPTION_LENGTH ? sb.substring(0, MAX_DESCRIPTION_LENGTH) + "..." : sb.toString();
+        }
+
+    }
+
+    /**
+     * Differences of one comparison with the current JSON pointer as a stack of segments.
+     */
+    private final class Comparison {
+
+        private final int maxDifferences;
+        private final List<String> differences = new ArrayList<>();
+        private Object[] path = new Object[16];
+        private int depth;
+
+        private Comparison(int maxDifferences) {
+            this.maxDifferences = maxDifferences;
+        }
+
+        private boolean isFull() {
+            return differences.size() >= maxDifferences;
+        }
+
+        private void compare(Node expected, Node actual) {
+            if (isFull()) {
+                return;
+            }
+            if (expected.kind != actual.kind) {
+                difference("expected " + expected + " but was " + actual);
+            } else if (expected.kind == Kind.OBJECT) {
+                compareObjects(expected.fields(), actual.fields());
+            } else if (expected.kind == Kind.ARRAY) {
+                compareArrays(expected.elements(), actual.elements());
+            } else if (!expected.sameValue(actual)) {
+                difference("expected " + expected + " but was " + actual);
+            }
+        }
+
+        private void compareObjects(Map<String, Node> expected, Map<String, Node> actual) {
+            for (Map.Entry<String, Node> field : expected.entrySet()) {
+                push(field.getKey());
+                final Node actualValue = actual.get(field.getKey());
+                if (actualValue == null) {
+                    difference("expected " + field.getValue() + " but field is missing");
+                } else {
+                    compare(field.getValue(), actualValue);
+                }
+                pop();
+                if (isFull()) {
+                    return;
+                }
+            }
+            if (!strict || actual.size() == expected.size() && actual.keySet().containsAll(expected.keySet())) {
+                return;
+            }
+            for (Map.Entry<String, Node> field : actual.entrySet()) {
+                if (!expected.containsKey(field.getKey()) && !isFull()) {
+                    push(field.getKey());
+                    difference("unexpected field " + field.getValue());
+                    pop();
+                }
+            }
+        }
+
+        private void compareArrays(Node[] expected, Node[] actual) {
+            if (expected.length != actual.length) {
+                difference("expected " + expected.length + " elements but was " + actual.length);
+                return;
+            }
+            if (strict) {
+                for (int i = 0; i < expected.length && !isFull(); i++) {
+                    push(i);
+                    compare(expected[i], actual[i]);
+                    pop();
+                }
+                return;
+            }
+            final Map<Long, ArrayDeque<Integer>> actualByHash = new HashMap<>();
+            for (int i = 0; i < actual.length; i++) {
+                actualByHash.computeIfAbsent(actual[i].hash, hash -> new ArrayDeque<>(1)).add(i);
+            }
+            final boolean[] matched = new boolean[actual.length];
+            final List<Integer> unmatched = new ArrayList<>();
+            for (int i = 0; i < expected.length; i++) {
+                if (!matchByHash(expected[i], actual, actualByHash.get(expected[i].hash), matched)) {
+                    unmatched.add(i);
+                }
+            }
+            final Map<List<String>, Map<Long, ArrayDeque<Integer>>> actualByShape = new HashMap<>();
+            for (Integer i : unmatched) {
+                final List<String> shape = scalarFields(expected[i]);
+                final boolean found;
+                if (shape.isEmpty()) {
+                    found = matchAny(expected[i], actual, matched);
+                } else {
+                    final Map<Long, ArrayDeque<Integer>> byProjection = actualByShape.computeIfAbsent(shape, key -> index(key, actual, matched));
+                    found = matchByHash(expected[i], actual, byProjection.get(projectionHash(expected[i], shape)), matched);
+                }
+                if (!found) {
+                    push(i);
+                    difference("expected element " + expected[i] + " has no match in the actual array");
+                    pop();
+                    if (isFull()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean matchByHash(Node expected, Node[] actual, ArrayDeque<Integer> candidates, boolean[] matched) {
+            if (candidates == null) {
+                return false;
+            }
+            final Iterator<Integer> iterator = candidates.iterator();
+            while (iterator.hasNext()) {
+                final int index = iterator.next();
+                // equal hashes are checked, a collision falls back to the pairwise match
+                if (matches(expected, actual[index])) {
+                    iterator.remove();
+                    matched[index] = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the sorted names of the scalar fields of an object, which any match must have with the same values
+         */
+        private List<String> scalarFields(Node node) {
+            if (node.kind != Kind.OBJECT) {
+                return List.of();
+            }
+            final TreeSet<String> names = new TreeSet<>();
+            for (Map.Entry<String, Node> field : node.fields().entrySet()) {
+                final Kind kind = field.getValue().kind;
+                if (kind != Kind.OBJECT && kind != Kind.ARRAY) {
+                    names.add(field.getKey());
+                }
+            }
+            return List.copyOf(names);
+        }
+
+        private Map<Long, ArrayDeque<Integer>> index(List<String> shape, Node[] actual, boolean[] matched) {
+            final Map<Long, ArrayDeque<Integer>> byProjection = new HashMap<>();
+            for (int i = 0; i < actual.length; i++) {
+                if (!matched[i] && actual[i].kind == Kind.OBJECT) {
+                    final Long hash = projectionHash(actual[i], shape);
+                    if (hash != null) {
+                        byProjection.computeIfAbsent(hash, key -> new ArrayDeque<>(1)).add(i);
+                    }
+                }
+            }
+            return byProjection;
+        }
+
+        /**
+         * @return the hash of the fields of the shape, {@code null} if one is missing
+         */
+        private Long projectionHash(Node node, List<String> shape) {
+            long hash = Kind.OBJECT.ordinal();
+            for (String name : shape) {
+                final Node value = node.fields().get(name);
+                if (value == null) {
+                    return null;
+                }
+                hash = hash * 31 + mix(hashString(name) * 31 + value.hash);
+            }
+            return hash;
+        }
+
+        private boolean matchAny(Node expected, Node[] actual, boolean[] matched) {
+            for (int i = 0; i < actual.length; i++) {
+                if (!matched[i] && matches(expected, actual[i])) {
+                    matched[i] = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(Node expected, Node actual) {
+            final Comparison comparison = new Comparison(1);
+            comparison.compare(expected, actual);
+            return comparison.differences.isEmpty();
+        }
+
+        private void push(Object segment) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = segment;
+        }
+
+        private void pop() {
+            path[--depth] = null;
+        }
+
+        private void difference(String message) {
+            if (!isFull()) {
+                differences.add(pointer() + ": " + message);
+            }
+        }
+
+        private String pointer() {
+            if (depth == 0) {
+                return "/";
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                sb.append('/').append(path[i].toString().replace("~", "~0").replace("/", "~1"));
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("JSON documents differ (")
+                    .append(strict ? JsonCompareMode.STRICT : JsonCompareMode.LENIENT)
+                    .append(isFull() ? ", stopped after " + maxDifferences + " differences" : "")
+                    .append("):");
+            for (String difference : differences) {
+                sb.append(System.lineSeparator()).append("  ").append(difference);
+            }
+            return sb.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.Assert;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Virtual time for the async request timeouts ({@code DeferredResult}, {@code Callable}, {@code WebAsyncTask}, MVC default).
+ * <p>{@link MockMvc} never fires async timeouts by itself, so timeout tests usually wait for the real timeout.
+ * With this clock the requests {@link #start(RequestBuilder) started} keep their async timeout, and
+ * {@link #advance(Duration)} fires, as a servlet container would, the timeout of every request
+ * whose timeout has elapsed in virtual time and which has not completed yet. The timeout handling of the
+ * application then runs and the result can be {@link #dispatch(MvcResult) dispatched} to check the response.
+ * <p>The work of a request runs in real time on other threads: before firing a timeout, the clock waits up to
+ * the {@link #settle(Duration) settle time} (100 ms by default) for the request to complete, so fast work is not
+ * reported as timed out. A request is {@link #isTimedOut(MvcResult) timed out} only when its completion
+ * comes from the fired timeout, not from work completing concurrently.
+ * <pre>
+ * VirtualAsyncClock clock = VirtualAsyncClock.of(context);
+ * MvcResult result = clock.start(MockMvcRequestBuilders.get("/api/deferred"));
+ * clock.advance(Duration.ofSeconds(30));
+ * clock.dispatch(result).andExpect(status().isServiceUnavailable());
+ * </pre>
+ * Only the async timeouts are virtual: the work of the application still runs in real time.
+ *
+ * @since 
+ * @author Florian Lestic
+ */
+public final class VirtualAsyncClock {
+
+    private final MockMvc mockMvc;
+    private final Map<MvcResult, Entry> entries = new IdentityHashMap<>();
+    private long now;
+    private Duration settle = Duration.ofMillis(100);
+
+    private VirtualAsyncClock(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+    }
+
+    /**
+     * @param context
+     * @return
+     */
+    public static VirtualAsyncClock of(WebApplicationContext context) {
+        return new VirtualAsyncClock(MockMvcCache.get(context));
+    }
+
+    /**
+     * @param mockMvc
+     * @return
+     */
+    public static VirtualAsyncClock of(MockMvc mockMvc) {
+        Assert.notNull(mockMvc, "MockMvc must not be null");
+        return new VirtualAsyncClock(mockMvc);
+    }
+
+    /**
+     * @param settle maximum real time given to the work in progress to complete before a timeout is fired
+     * @return this
+     */
+    public synchronized VirtualAsyncClock settle(Duration settle) {
+        Assert.isTrue(settle != null && !settle.isNegative(), "Settle time must not be negative");
+        this.settle = settle;
+        return this;
+    }
+
+    /**
+     * @param requestBuilder
+     * @return the result of the request, async started
+     */
+    public synchronized MvcResult start(RequestBuilder requestBuilder) {
+        final MvcResult mvcResult;
+        try {
+            mvcResult = mockMvc.perform(requestBuilder).andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        assertTrue(mvcResult.getRequest().isAsyncStarted(), "Async not started");
+        final MockAsyncContext asyncContext = (MockAsyncContext) mvcResult.getRequest().getAsyncContext();
+        final Entry entry = new Entry(asyncContext, now, asyncContext.getTimeout());
+        entries.put(mvcResult, entry);
+        asyncContext.addDispatchHandler(entry::onDispatch);
+        return mvcResult;
+    }
+
+    /**
+     * Advance the virtual time and fire the elapsed timeouts.
+     * @param duration
+     */
+    public synchronized void advance(Duration duration) {
+        Assert.isTrue(duration != null && !duration.isNegative(), "Duration must not be negative");
+        now += duration.toMillis();
+        final List<Entry> elapsed = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            // a timeout of 0 or less never expires
+            if (!entry.isDispatched() && !entry.fired && entry.timeout > 0 && entry.start + entry.timeout <= now) {
+                elapsed.add(entry);
+            }
+        }
+        final long deadline = System.nanoTime() + settle.toNanos();
+        for (Entry entry : elapsed) {
+            if (!entry.awaitDispatch(deadline)) {
+                entry.fire();
+            }
+        }
+    }
+
+    /**
+     * Advance the virtual time up to the timeout of the request.
+     * @param mvcResult
+     */
+    public synchronized void advanceToTimeout(MvcResult mvcResult) {
+        final Entry entry = getEntry(mvcResult);
+        Assert.isTrue(entry.timeout > 0, "Request has no timeout");
+        advance(Duration.ofMillis(Math.max(0, entry.start + entry.timeout - now)));
+    }
+
+    /**
+     * @return the virtual time elapsed since the creation of the clock
+     */
+    public synchronized Duration getTime() {
+        return Duration.ofMillis(now);
+    }
+
+    /**
+     * @param mvcResult
+     * @return {@code true} if the request was completed by its fired timeout
+     */
+    public synchronized boolean isTimedOut(MvcResult mvcResult) {
+        return getEntry(mvcResult).timedOut;
+    }
+
+    /**
+     * @param mvcResult
+     * @return the result of the async dispatch, the async result must be set
+     */
+    public ResultActions dispatch(MvcResult mvcResult) {
+        try {
+            return mockMvc.perform(asyncDispatch(mvcResult));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Entry getEntry(MvcResult mvcResult) {
+        final Entry entry = entries.get(mvcResult);
+        Assert.notNull(entry, "Request not started by this clock");
+        return entry;
+    }
+
+    /**
+     * Fire the timeout of the request as a servlet container would.
+     * @param asyncContext
+     */
+    static void fireTimeout(MockAsyncContext asyncContext) {
+        final AsyncEvent event = new AsyncEvent(asyncContext, asyncContext.getRequest(), asyncContext.getResponse());
+        for (AsyncListener listener : new ArrayList<>(asyncContext.getListeners())) {
+            try {
+                listener.onTimeout(event);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final MockAsyncContext asyncContext;
+        private final long start;
+        private final long timeout;
+        private final CountDownLatch dispatched = new CountDownLatch(1);
+        private volatile Thread firing;
+        private boolean fired;
+        private volatile boolean timedOut;
+
+        private Entry(MockAsyncContext asyncContext, long start, long timeout) {
+            this.asyncContext = asyncContext;
+            this.start = start;
+            this.timeout = timeout;
+        }
+
+        /**
+         * Called on the dispatching thread: the timeout handling dispatches on the firing thread,
+         * work completing concurrently on its own thread.
+         */
+        private void onDispatch() {
+            if (Thread.currentThread() == firing) {
+                timedOut = true;
+            }
+            dispatched.countDown();
+        }
+
+        private boolean isDispatched() {
+            return dispatched.getCount() == 0;
+        }
+
+        private boolean awaitDispatch(long deadline) {
+            try {
+                return dispatched.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void fire() {
+            fired = true;
+            firing = Thread.currentThread();
+            try {
+                fireTimeout(asyncContext);
+            } finally {
+                firing = null;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.flcit.springboot.commons.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.json.JsonComparison;
+
+class StructuralJsonComparatorTest {
+
+    private static final int SIZE = 10_000;
+
+    @Test
+    void lenientArrayWithExtraFieldsMatches() {
+        final String expected = array(SIZE, false, -1);
+        final String actual = array(SIZE, true, -1);
+        final JsonComparison comparison = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> StructuralJsonComparator.of(JsonCompareMode.LENIENT).compare(expected, actual));
+        assertEquals(JsonComparison.Result.MATCH, comparison.getResult(), comparison.getMessage());
+    }
+
+    @Test
+    void lenientArrayWithExtraFieldsMismatches() {
+        final String expected = array(SIZE, false, -1);
+        final String actual = array(SIZE, true, SIZE / 2);
+        final JsonComparison comparison = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> StructuralJsonComparator.of(JsonCompareMode.LENIENT).compare(expected, actual));
+        assertEquals(JsonComparison.Result.MISMATCH, comparison.getResult());
+    }
+
+    private static String array(int size, boolean extra, int changed) {
+        final List<String> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final StringBuilder element = new StringBuilder()
+                    .append("{\"id\":").append(i == changed ? -i : i)
+                    .append(",\"name\":\"user").append(i).append('"');
+            if (extra) {
+                element.append(",\"createdAt\":\"2023-01-01\",\"index\":").append(i);
+            }
+            elements.add(element.append('}').toString());
+        }
+        if (extra) {
+            Collections.shuffle(elements, new Random(42));
+        }
+        return elements.toString();
+    }
+
+}